@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+
+/**
+ * Per-line cost of finding the issue referenced by a to-do comment, compiling the regexes for every line
+ * as the issue analysers used to, against a {@link TodoIssuePattern} compiled once.
+ * <p>
+ * Run with `./gradlew jmh`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TodoIssuePatternBenchmark {
+
+    private static final String ISSUE_REGEX = "MON-[0-9]{3}";
+    private static final String TODO_ISSUE_REGEX_FORMAT = ".*//.*(T|t)(O|o)(D|d)(O|o).*%s.*";
+
+    @Param({"    private final String field = \"value\"; // plain line of code",
+            "    // TODO MON-123 referenced issue"})
+    public String line;
+
+    private final TodoIssuePattern todoIssuePattern = new TodoIssuePattern("Jira", ISSUE_REGEX);
+
+    @Benchmark
+    public Optional<String> compiledPerLine() {
+        if (!line.matches(format(TODO_ISSUE_REGEX_FORMAT, ISSUE_REGEX))) {
+            return Optional.empty();
+        }
+        Matcher matcher = Pattern.compile(ISSUE_REGEX).matcher(line);
+        return matcher.find() ? Optional.of(matcher.group()) : Optional.empty();
+    }
+
+    @Benchmark
+    public Optional<String> compiledOnce() {
+        return todoIssuePattern.referencedIssue(line);
+    }
+}
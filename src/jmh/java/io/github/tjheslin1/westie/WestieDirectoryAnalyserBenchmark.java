@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import io.github.tjheslin1.westie.infrastructure.FileLinesReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.github.tjheslin1.westie.WestieRegexes.TODO_REGEX;
+
+/**
+ * Throughput of analysing the lines of a generated source tree with 1..N workers.
+ * <p>
+ * Run with `./gradlew jmh`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WestieDirectoryAnalyserBenchmark {
+
+    private static final int NUMBER_OF_DIRECTORIES = 20;
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final int LINES_PER_FILE = 200;
+
+    @Param({"1", "2", "4", "8"})
+    public int workers;
+
+    private Path sourceTree;
+
+    @Setup(Level.Trial)
+    public void generateSourceTree() throws IOException {
+        sourceTree = Files.createTempDirectory("westie-benchmark");
+        for (int directory = 0; directory < NUMBER_OF_DIRECTORIES; directory++) {
+            Path packageDirectory = Files.createDirectories(sourceTree.resolve("package" + directory));
+            for (int file = 0; file < FILES_PER_DIRECTORY; file++) {
+                Files.write(packageDirectory.resolve("Generated" + file + ".java"), sourceFileLines(file));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSourceTree() throws IOException {
+        try (Stream<Path> files = Files.walk(sourceTree)) {
+            files.sorted(Comparator.reverseOrder())
+                    .forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<Violation> analyseLinesOfFile() throws IOException {
+        FileLinesReader fileLinesReader = new FileLinesReader();
+        return new WestieDirectoryAnalyser(sourceTree, ".java", fileLinesReader::readAllLines)
+                .inParallel(workers)
+                .analyseLinesOfFile(line -> line.matches(TODO_REGEX), "Benchmark violation");
+    }
+
+    private static List<String> sourceFileLines(int file) {
+        List<String> lines = new ArrayList<>();
+        lines.add("package io.github.tjheslin1.benchmark;");
+        lines.add("");
+        lines.add("public class Generated" + file + " {");
+        for (int line = 0; line < LINES_PER_FILE; line++) {
+            if (line % 50 == 0) {
+                lines.add("    // TODO generated to-do comment " + line);
+            } else {
+                lines.add("    private final String field" + line + " = \"value " + line + "\";");
+            }
+        }
+        lines.add("}");
+        return lines;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import com.google.common.hash.Hasher;
+import io.github.tjheslin1.westie.infrastructure.FileContent;
+import io.github.tjheslin1.westie.infrastructure.WestieFileReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A file being analysed by a {@link WestieAnalysisSession}.
+ * <p>
+ * The file is read at most once as a {@link FileContent}, shared by every rule applied to it,
+ * unless its lines are streamed with {@link #forEachLine(Consumer)} or {@link #forEachCandidateLine(List, Hasher, Consumer)}.
+ */
+class AnalysedFile {
+
+    private final Path file;
+    private final WestieFileReader fileReader;
+
+    private FileContent fileContent;
+    private Exception readFailure;
+    private boolean readFailureReported;
+    private boolean ruleFailed;
+
+    AnalysedFile(Path file, WestieFileReader fileReader) {
+        this.file = file;
+        this.fileReader = fileReader;
+    }
+
+    Path path() {
+        return file;
+    }
+
+    List<String> lines() throws Exception {
+        return fileContent().lines();
+    }
+
+    String content() throws Exception {
+        return fileContent().content();
+    }
+
+    private FileContent fileContent() throws Exception {
+        if (readFailure != null) {
+            throw readFailure;
+        }
+        if (fileContent == null) {
+            try {
+                fileContent = fileReader.readContent(file);
+            } catch (IOException | RuntimeException e) {
+                readFailure = e;
+                throw e;
+            }
+        }
+        return fileContent;
+    }
+
+    /**
+     * Passes each line of the file to 'lineConsumer' as it is read, without holding all of the lines in memory
+     * unless they have already been read by {@link #lines()}.
+     * Exceptions thrown by 'lineConsumer' are propagated.
+     *
+     * @return false if the file could not be read, in which case {@link #unableToRead()} reports the failure.
+     */
+    boolean forEachLine(Consumer<String> lineConsumer) {
+        if (readFailure != null) {
+            return false;
+        }
+        if (fileContent != null) {
+            fileContent.lines().forEach(lineConsumer);
+            return true;
+        }
+
+        Stream<String> streamedLines;
+        try {
+            streamedLines = fileReader.lines(file);
+        } catch (IOException | RuntimeException e) {
+            readFailure = e;
+            return false;
+        }
+
+        try (Stream<String> closedLines = streamedLines) {
+            return forEach(closedLines.iterator(), lineConsumer);
+        }
+    }
+
+    /**
+     * Memory-maps the file, bypassing the {@link WestieFileReader}, and passes each line which passes at least one
+     * of the 'prefilters' to 'lineConsumer', without decoding the other lines.
+     * Exceptions thrown by 'lineConsumer' are propagated.
+     *
+     * @param contentHasher If not null, receives the content of the file.
+     * @return false if the file could not be read, in which case {@link #unableToRead()} reports the failure.
+     */
+    boolean forEachCandidateLine(List<LinePrefilter> prefilters, Hasher contentHasher, Consumer<String> lineConsumer) {
+        if (readFailure != null) {
+            return false;
+        }
+
+        MappedLineScanner mappedLines;
+        try {
+            mappedLines = MappedLineScanner.map(file, prefilters);
+        } catch (IOException | RuntimeException e) {
+            readFailure = e;
+            return false;
+        }
+
+        if (mappedLines == null) {
+            return forEachLine(line -> {
+                if (contentHasher != null) {
+                    IncrementalAnalysisCache.putLine(contentHasher, line);
+                }
+                if (prefilters.stream().anyMatch(prefilter -> prefilter.matches(line))) {
+                    lineConsumer.accept(line);
+                }
+            });
+        }
+        if (contentHasher != null) {
+            mappedLines.putContent(contentHasher);
+        }
+        return forEach(mappedLines, lineConsumer);
+    }
+
+    private boolean forEach(Iterator<String> lineIterator, Consumer<String> lineConsumer) {
+        while (true) {
+            String line;
+            try {
+                if (!lineIterator.hasNext()) {
+                    return true;
+                }
+                line = lineIterator.next();
+            } catch (RuntimeException e) {
+                readFailure = e;
+                return false;
+            }
+            lineConsumer.accept(line);
+        }
+    }
+
+    Stream<Violation> unableToRead() {
+        return unableToRead(readFailure);
+    }
+
+    boolean failedToRead() {
+        return readFailure != null;
+    }
+
+    boolean failedToApplyRule() {
+        return ruleFailed;
+    }
+
+    /**
+     * @param violationMessage Describes the exception thrown by a rule applied to the file.
+     * @return A {@link FileViolation} reporting the failure, which isn't a result of the rule to be cached.
+     */
+    Stream<Violation> unableToApplyRule(String violationMessage) {
+        ruleFailed = true;
+        return Stream.of(new FileViolation(file, violationMessage));
+    }
+
+    /**
+     * @param e The exception thrown whilst reading the file.
+     * @return A {@link FileViolation} for the first rule unable to read the file, nothing for any later rules.
+     */
+    Stream<Violation> unableToRead(Exception e) {
+        if (readFailureReported) {
+            return Stream.empty();
+        }
+        readFailureReported = true;
+        return Stream.of(new FileViolation(file, "Unable to read file.\n" + e.getMessage()));
+    }
+}
@@ -45,6 +45,18 @@ public class FileLineViolation extends ValueType implements Violation {
         System.out.println(this.toString());
     }
 
+    Path file() {
+        return file;
+    }
+
+    String line() {
+        return line;
+    }
+
+    String message() {
+        return message;
+    }
+
     @Override
     public String toString() {
         return format("Violation in file '%s'%n%n%s%n%n%s%n", file.getFileName(), line, message);
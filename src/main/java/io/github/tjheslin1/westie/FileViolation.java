@@ -42,6 +42,14 @@ public class FileViolation extends ValueType implements Violation {
         System.out.println(this.toString());
     }
 
+    Path file() {
+        return file;
+    }
+
+    String message() {
+        return message;
+    }
+
     @Override
     public String toString() {
         return format("Violation in file '%s'%n%s%n", file.getFileName(), message);
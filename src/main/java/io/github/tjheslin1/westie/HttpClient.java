@@ -21,6 +21,7 @@ import io.github.tjheslin1.westie.http.Request;
 import io.github.tjheslin1.westie.http.Response;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Domain representation of a HTTP client which executed a {@link Request}
@@ -35,4 +36,22 @@ public interface HttpClient {
      * @throws IOException if an I/O exception occurs whilst communicating over HTTP.
      */
     Response execute(Request request) throws IOException;
+
+    /**
+     * Sends the {@link Request} without blocking the calling thread, where the implementation supports it.
+     * By default, the request is executed on the calling thread and an already completed future is returned.
+     *
+     * @param request The {@link Request} to be sent via the httpClient implementation.
+     * @return A future completed with the result of the http request as a {@link Response},
+     * or completed exceptionally if an I/O exception occurs whilst communicating over HTTP.
+     */
+    default CompletableFuture<Response> executeAsync(Request request) {
+        CompletableFuture<Response> response = new CompletableFuture<>();
+        try {
+            response.complete(execute(request));
+        } catch (IOException | RuntimeException e) {
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The files, by name, exempt from analysis.
+ * <p>
+ * A file is ignored if its path ends with one of the names, postfixed with the file type if it is missing.
+ * The names are indexed by length once, so checking a file costs one hash lookup per distinct name length
+ * rather than one comparison per name.
+ */
+public class IgnoredFiles {
+
+    private final Set<String> ignoredSuffixes;
+    private final int[] suffixLengths;
+
+    private IgnoredFiles(Set<String> ignoredSuffixes) {
+        this.ignoredSuffixes = ignoredSuffixes;
+        this.suffixLengths = ignoredSuffixes.stream()
+                .mapToInt(String::length)
+                .distinct().sorted().toArray();
+    }
+
+    /**
+     * Static constructor.
+     *
+     * @param filesToIgnore The files, by name, exempt from analysis.
+     * @param filetype      The suffix of files being analysed, appended to names which don't already end with it.
+     *                      May be null if all files are being analysed.
+     * @return An {@link IgnoredFiles} indexing the provided names.
+     */
+    public static IgnoredFiles ignoredFiles(List<String> filesToIgnore, String filetype) {
+        Set<String> ignoredSuffixes = new HashSet<>();
+        for (String fileToIgnore : filesToIgnore) {
+            ignoredSuffixes.add(postfixedWithTypeExtension(fileToIgnore, filetype));
+        }
+        return new IgnoredFiles(ignoredSuffixes);
+    }
+
+    /**
+     * @param file The file to check.
+     * @return true if the file's path ends with one of the ignored names.
+     */
+    public boolean isIgnored(Path file) {
+        String filePath = file.toString();
+        for (int suffixLength : suffixLengths) {
+            if (suffixLength > filePath.length()) {
+                return false;
+            }
+            if (ignoredSuffixes.contains(filePath.substring(filePath.length() - suffixLength))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String postfixedWithTypeExtension(String file, String filetype) {
+        if (filetype == null) {
+            return file;
+        }
+
+        return file.endsWith(filetype) ? file : file + filetype;
+    }
+}
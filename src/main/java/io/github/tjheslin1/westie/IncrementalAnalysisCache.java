@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.github.tjheslin1.westie.infrastructure.JsonFiles;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The violations found in each file by a previous analysis, persisted between runs.
+ * <p>
+ * Each file's entry records its size, last modified time and a hash of its content.
+ * While the size and last modified time are unchanged the file is not read again and its violations are replayed.
+ * If they have changed but the content hash has not, the violations are replayed without applying the rules again.
+ * <p>
+ * The whole cache is discarded when the fingerprint of the rules it was recorded with changes.
+ */
+class IncrementalAnalysisCache {
+
+    private static final String RULES_FINGERPRINT = "rulesFingerprint";
+    private static final String FILES = "files";
+    private static final String SIZE = "size";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String CONTENT_HASH = "contentHash";
+    private static final String VIOLATIONS = "violations";
+    private static final String LINE = "line";
+    private static final String MESSAGE = "message";
+
+    private final Path cacheFile;
+    private final String rulesFingerprint;
+    private final JSONObject previousFiles;
+    private final Map<String, JSONObject> analysedFiles = new ConcurrentHashMap<>();
+
+    private IncrementalAnalysisCache(Path cacheFile, String rulesFingerprint, JSONObject previousFiles) {
+        this.cacheFile = cacheFile;
+        this.rulesFingerprint = rulesFingerprint;
+        this.previousFiles = previousFiles;
+    }
+
+    /**
+     * Loads the cache, starting afresh if it doesn't exist, can't be parsed or was recorded with different rules.
+     */
+    static IncrementalAnalysisCache load(Path cacheFile, String rulesFingerprint) throws IOException {
+        JSONObject previousFiles = JsonFiles.read(cacheFile)
+                .filter(cache -> rulesFingerprint.equals(cache.optString(RULES_FINGERPRINT)))
+                .map(cache -> cache.optJSONObject(FILES))
+                .orElseGet(JSONObject::new);
+        return new IncrementalAnalysisCache(cacheFile, rulesFingerprint, previousFiles);
+    }
+
+    static String contentHash(List<String> lines) {
+        Hasher hasher = contentHasher();
+        for (String line : lines) {
+            putLine(hasher, line);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Allows the content hash to be computed whilst streaming the lines of a file, see {@link #contentHash(List)}.
+     */
+    static Hasher contentHasher() {
+        return Hashing.murmur3_128().newHasher();
+    }
+
+    static void putLine(Hasher hasher, String line) {
+        hasher.putString(line, UTF_8).putByte((byte) '\n');
+    }
+
+    /**
+     * @return The violations previously found in the file if its size and last modified time are unchanged, otherwise null.
+     */
+    List<Violation> unchangedFileViolations(Path file, BasicFileAttributes attrs) {
+        String key = key(file);
+        JSONObject previous = previousFiles.optJSONObject(key);
+        if (previous == null || previous.getLong(SIZE) != attrs.size()
+                || previous.getLong(LAST_MODIFIED) != attrs.lastModifiedTime().toMillis()) {
+            return null;
+        }
+        analysedFiles.put(key, previous);
+        return violations(file, previous);
+    }
+
+    /**
+     * @return The violations previously found in the file if its content is unchanged, otherwise null.
+     */
+    List<Violation> unchangedContentViolations(Path file, String contentHash) {
+        JSONObject previous = previousFiles.optJSONObject(key(file));
+        if (previous == null || !contentHash.equals(previous.optString(CONTENT_HASH, null))) {
+            return null;
+        }
+        return violations(file, previous);
+    }
+
+    void record(Path file, BasicFileAttributes attrs, String contentHash, List<Violation> violations) {
+        JSONArray recordedViolations = new JSONArray();
+        for (Violation violation : violations) {
+            recordedViolations.put(recordedViolation(violation));
+        }
+
+        JSONObject entry = new JSONObject()
+                .put(SIZE, attrs.size())
+                .put(LAST_MODIFIED, attrs.lastModifiedTime().toMillis())
+                .put(VIOLATIONS, recordedViolations);
+        if (contentHash != null) {
+            entry.put(CONTENT_HASH, contentHash);
+        }
+        analysedFiles.put(key(file), entry);
+    }
+
+    /**
+     * Writes the entries of the files analysed in this run, keeping the previous entries of files which were not
+     * analysed, such as those left out when only changed files are analysed, unless they no longer exist.
+     */
+    void save() throws IOException {
+        Map<String, JSONObject> files = new HashMap<>(analysedFiles);
+        for (String key : previousFiles.keySet()) {
+            if (!files.containsKey(key) && Files.isRegularFile(Paths.get(key))) {
+                files.put(key, previousFiles.getJSONObject(key));
+            }
+        }
+        JSONObject cache = new JSONObject()
+                .put(RULES_FINGERPRINT, rulesFingerprint)
+                .put(FILES, new JSONObject(files));
+        JsonFiles.write(cacheFile, cache);
+    }
+
+    private JSONObject recordedViolation(Violation violation) {
+        if (violation instanceof FileLineViolation) {
+            FileLineViolation fileLineViolation = (FileLineViolation) violation;
+            return new JSONObject()
+                    .put(LINE, fileLineViolation.line())
+                    .put(MESSAGE, fileLineViolation.message());
+        }
+        if (violation instanceof FileViolation) {
+            return new JSONObject().put(MESSAGE, ((FileViolation) violation).message());
+        }
+        throw new IllegalArgumentException(format("Unable to cache violation '%s'", violation));
+    }
+
+    private List<Violation> violations(Path file, JSONObject entry) {
+        JSONArray recordedViolations = entry.getJSONArray(VIOLATIONS);
+        if (recordedViolations.length() == 0) {
+            return Collections.emptyList();
+        }
+
+        List<Violation> violations = new ArrayList<>(recordedViolations.length());
+        for (int i = 0; i < recordedViolations.length(); i++) {
+            JSONObject recordedViolation = recordedViolations.getJSONObject(i);
+            if (recordedViolation.has(LINE)) {
+                violations.add(new FileLineViolation(file, recordedViolation.getString(LINE), recordedViolation.getString(MESSAGE)));
+            } else {
+                violations.add(new FileViolation(file, recordedViolation.getString(MESSAGE)));
+            }
+        }
+        return violations;
+    }
+
+    private String key(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import com.google.common.base.Throwables;
+import io.github.tjheslin1.westie.infrastructure.ApacheHttpClient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+import static java.lang.String.format;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Applies a rule to the issues referenced in to-do comments in two phases, so that scanning files
+ * never waits on the issue tracker.
+ * <p>
+ * The first phase walks the files, recording each line which references an issue.
+ * The second phase looks up each distinct issue, concurrently, with at most 'maxInFlight' lookups in flight in total
+ * and 'maxInFlightPerHost' to any one host. The recorded lines referencing an issue which fails the rule are reported.
+ * <p>
+ * Lookups returning a future, see {@link AsyncLookup}, hold a lookup thread only until their request is sent,
+ * so with an {@link HttpClient} which sends requests without blocking, such as {@code ApacheAsyncHttpClient},
+ * many lookups are in flight on a few threads. Blocking lookups hold a thread until they complete.
+ * <p>
+ * A single instance can be shared between analysers, to bound their lookups together.
+ * <p>
+ * Each lookup holds one of the {@link HttpClient}'s connections, so the client must pool at least as many connections
+ * as the limits here, otherwise the extra lookups only wait for a connection.
+ * The default limits match the pool of {@link ApacheHttpClient#ApacheHttpClient(java.time.Duration)},
+ * and {@link ApacheHttpClient#ApacheHttpClient(java.time.Duration, int, int)} pools enough for any others.
+ */
+public final class IssueReferenceAnalysis {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = ApacheHttpClient.DEFAULT_MAX_CONNECTIONS;
+    public static final int DEFAULT_MAX_IN_FLIGHT_PER_HOST = ApacheHttpClient.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+
+    private final int maxInFlightPerHost;
+    private final Semaphore inFlight;
+    private final ConcurrentMap<String, Semaphore> inFlightByHost = new ConcurrentHashMap<>();
+
+    public IssueReferenceAnalysis() {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT_PER_HOST);
+    }
+
+    /**
+     * @param maxInFlight        The maximum number of issues being looked up at once.
+     * @param maxInFlightPerHost The maximum number of issues being looked up at once from a single host.
+     */
+    public IssueReferenceAnalysis(int maxInFlight, int maxInFlightPerHost) {
+        if (maxInFlight < 1 || maxInFlightPerHost < 1) {
+            throw new IllegalArgumentException(format("Expected at least one lookup in flight. " +
+                    "maxInFlight '%s' and maxInFlightPerHost '%s' were provided.", maxInFlight, maxInFlightPerHost));
+        }
+        this.maxInFlightPerHost = maxInFlightPerHost;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Looks up issues in bulk before they are looked up one at a time, for example {@code JiraIssues::prefetchStatuses}.
+     */
+    @FunctionalInterface
+    public interface Prefetch {
+
+        void prefetch(Set<String> issues) throws IOException;
+    }
+
+    /**
+     * Looks up a single issue without waiting for the response, for example through {@link HttpClient#executeAsync}.
+     */
+    @FunctionalInterface
+    public interface AsyncLookup {
+
+        /**
+         * @param issue The issue to look up.
+         * @return A future completed with true if the issue fails the rule.
+         */
+        CompletableFuture<Boolean> issueFailsRule(String issue);
+    }
+
+    /**
+     * @param analysisSession  The session to walk the files with. No other rules should be registered with it.
+     * @param todoIssuePattern Finds the issue referenced by each line.
+     * @param violationMessage The message to print if a line references an issue which fails the rule.
+     * @param host             The host the issues are looked up from.
+     * @param prefetch         Called with every referenced issue, before they are looked up one at a time.
+     * @param issueFailsRule   Looks up a single issue, returning true if it fails the rule.
+     * @return The list of {@link Violation} for the lines referencing an issue which fails the rule,
+     * along with any files which couldn't be read.
+     * @throws IOException if an I/O error occurs when accessing the files, or looking up the issues.
+     */
+    public List<Violation> analyse(WestieAnalysisSession analysisSession, TodoIssuePattern todoIssuePattern, String violationMessage,
+                                   String host, Prefetch prefetch, Predicate<String> issueFailsRule) throws IOException {
+        return analyseWithAsyncLookups(analysisSession, todoIssuePattern, violationMessage, host, prefetch,
+                issue -> CompletableFuture.completedFuture(issueFailsRule.test(issue)));
+    }
+
+    /**
+     * @param analysisSession  The session to walk the files with. No other rules should be registered with it.
+     * @param todoIssuePattern Finds the issue referenced by each line.
+     * @param violationMessage The message to print if a line references an issue which fails the rule.
+     * @param host             The host the issues are looked up from.
+     * @param prefetch         Called with every referenced issue, before they are looked up one at a time.
+     * @param issueFailsRule   Looks up a single issue, completing with true if it fails the rule.
+     * @return The list of {@link Violation} for the lines referencing an issue which fails the rule,
+     * along with any files which couldn't be read.
+     * @throws IOException if an I/O error occurs when accessing the files, or looking up the issues.
+     */
+    public List<Violation> analyseWithAsyncLookups(WestieAnalysisSession analysisSession, TodoIssuePattern todoIssuePattern,
+                                                   String violationMessage, String host, Prefetch prefetch,
+                                                   AsyncLookup issueFailsRule) throws IOException {
+        Set<String> referencedIssues = ConcurrentHashMap.newKeySet();
+        List<Violation> referencingLines = analysisSession
+                .analyseLinesOfFile(todoIssuePattern.prefilter(), line -> todoIssuePattern.referencedIssue(line)
+                        .map(referencedIssues::add)
+                        .isPresent(), violationMessage)
+                .analyse();
+
+        prefetch.prefetch(referencedIssues);
+        Set<String> failingIssues = lookUp(host, referencedIssues, issueFailsRule);
+
+        return referencingLines.stream()
+                .filter(violation -> !(violation instanceof FileLineViolation)
+                        || todoIssuePattern.referencedIssue(((FileLineViolation) violation).line())
+                        .map(failingIssues::contains)
+                        .orElse(false))
+                .collect(toList());
+    }
+
+    /**
+     * Takes both permits on the calling thread before starting each lookup on a lookup thread,
+     * and gives them back once the lookup's future completes.
+     * The lookup threads are cached, so lookups which return as soon as their request is sent reuse a few threads.
+     */
+    private Set<String> lookUp(String host, Set<String> issues, AsyncLookup issueFailsRule) throws IOException {
+        Set<String> failingIssues = ConcurrentHashMap.newKeySet();
+        if (issues.isEmpty()) {
+            return failingIssues;
+        }
+
+        Semaphore inFlightToHost = inFlightByHost.computeIfAbsent(Objects.toString(host, ""), h -> new Semaphore(maxInFlightPerHost));
+        ExecutorService executorService = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "westie-issue-lookup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<CompletableFuture<Void>> lookups = new ArrayList<>();
+        try {
+            for (String issue : issues) {
+                inFlightToHost.acquire();
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    inFlightToHost.release();
+                    throw e;
+                }
+                lookups.add(CompletableFuture.supplyAsync(() -> issueFailsRule.issueFailsRule(issue), executorService)
+                        .thenCompose(identity())
+                        .handle((issueFails, failure) -> {
+                            inFlight.release();
+                            inFlightToHost.release();
+                            if (failure != null) {
+                                throw failure instanceof CompletionException ? (CompletionException) failure : new CompletionException(failure);
+                            }
+                            if (issueFails) {
+                                failingIssues.add(issue);
+                            }
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0])).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(format("Interrupted whilst looking up issues from '%s'.", host));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            Throwables.propagateIfPossible(cause, IOException.class);
+            throw new IllegalStateException(cause);
+        } finally {
+            lookups.forEach(lookup -> lookup.cancel(true));
+            executorService.shutdownNow();
+        }
+        return failingIssues;
+    }
+}
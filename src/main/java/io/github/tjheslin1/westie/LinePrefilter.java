@@ -0,0 +1,416 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * A cheap check of the ASCII literals a line must contain for a line rule to possibly fail it.
+ * A prefilter combined with {@link #or(LinePrefilter)} lets through lines containing the literals of either.
+ * <p>
+ * When scanning memory-mapped files, see {@link WestieDirectoryAnalyser#usingMemoryMappedScan()},
+ * lines are checked against the prefilter as bytes and only decoded to a String if they contain every literal.
+ * A prefilter must therefore never reject a line which the rule's {@link java.util.function.Predicate} would fail.
+ */
+public final class LinePrefilter {
+
+    private static final LinePrefilter ANY_LINE = new LinePrefilter(singletonList(emptyList()));
+
+    private final List<List<Literal>> alternatives;
+
+    private LinePrefilter(List<List<Literal>> alternatives) {
+        this.alternatives = unmodifiableList(alternatives);
+    }
+
+    /**
+     * @return A prefilter which lets every line through to the rule.
+     */
+    public static LinePrefilter anyLine() {
+        return ANY_LINE;
+    }
+
+    /**
+     * @param asciiLiteral Text which must appear in the line, exactly (e.g "import ").
+     * @return A prefilter which only lets through lines containing 'asciiLiteral'.
+     */
+    public static LinePrefilter containing(String asciiLiteral) {
+        return new LinePrefilter(singletonList(singletonList(new Literal(asciiLiteral, false))));
+    }
+
+    /**
+     * @param asciiLiteral Text which must appear in the line, in any case (e.g "todo").
+     * @return A prefilter which only lets through lines containing 'asciiLiteral', ignoring case.
+     */
+    public static LinePrefilter containingIgnoringCase(String asciiLiteral) {
+        return new LinePrefilter(singletonList(singletonList(new Literal(asciiLiteral, true))));
+    }
+
+    /**
+     * Extracts the literals which every line matched by 'regex' must contain, so the regex only needs to run
+     * on the lines containing them. For example, {@link WestieRegexes#TODO_REGEX} requires "//" and "todo", in any case.
+     * <p>
+     * Only literal runs outside of optional atoms, character classes and groups are extracted, along with
+     * groups of case variants such as "(T|t)". Regexes using inline flags, quoting or a top-level alternation
+     * can't be analysed, so a prefilter which lets every line through is returned for them.
+     *
+     * @param regex The regex a line rule matches lines with (e.g "MON-[0-9]{3}").
+     * @return A prefilter which only lets through lines containing the literals required by 'regex'.
+     */
+    public static LinePrefilter requiredBy(String regex) {
+        List<Literal> literals = new RegexLiterals(regex).extract();
+        return literals == null || literals.isEmpty() ? ANY_LINE : new LinePrefilter(singletonList(literals));
+    }
+
+    /**
+     * @param other Another prefilter the line must also pass.
+     * @return A prefilter which only lets through lines containing the literals of both prefilters.
+     */
+    public LinePrefilter and(LinePrefilter other) {
+        List<List<Literal>> combinedAlternatives = new ArrayList<>();
+        for (List<Literal> alternative : alternatives) {
+            for (List<Literal> otherAlternative : other.alternatives) {
+                List<Literal> literals = new ArrayList<>(alternative);
+                literals.addAll(otherAlternative);
+                combinedAlternatives.add(literals);
+            }
+        }
+        return new LinePrefilter(combinedAlternatives);
+    }
+
+    /**
+     * @param other Another prefilter the line may pass instead.
+     * @return A prefilter which lets through lines containing the literals of either prefilter.
+     */
+    public LinePrefilter or(LinePrefilter other) {
+        if (matchesAnyLine() || other.matchesAnyLine()) {
+            return ANY_LINE;
+        }
+        List<List<Literal>> combinedAlternatives = new ArrayList<>(alternatives);
+        combinedAlternatives.addAll(other.alternatives);
+        return new LinePrefilter(combinedAlternatives);
+    }
+
+    /**
+     * @param line A decoded line of a file.
+     * @return true if the line contains every literal of this prefilter, or of either prefilter it was combined from.
+     */
+    public boolean matches(String line) {
+        for (List<Literal> alternative : alternatives) {
+            if (containsAll(alternative, line)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean matchesAnyLine() {
+        return alternatives.stream().anyMatch(List::isEmpty);
+    }
+
+    /**
+     * Checks the UTF-8 encoded line between 'from' and 'to' in 'bytes'.
+     * An ASCII byte never appears within a multi-byte UTF-8 character, so the line doesn't need decoding first.
+     */
+    boolean matches(ByteBuffer bytes, int from, int to) {
+        for (List<Literal> alternative : alternatives) {
+            if (containsAll(alternative, bytes, from, to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAll(List<Literal> literals, String line) {
+        for (Literal literal : literals) {
+            if (!literal.isIn(line)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsAll(List<Literal> literals, ByteBuffer bytes, int from, int to) {
+        for (Literal literal : literals) {
+            if (!literal.isIn(bytes, from, to)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Literal {
+
+        private final String text;
+        private final byte[] bytes;
+        private final boolean ignoreCase;
+
+        private Literal(String text, boolean ignoreCase) {
+            if (text.isEmpty() || !US_ASCII.newEncoder().canEncode(text)) {
+                throw new IllegalArgumentException(format("Expected a non-empty ASCII literal. '%s' was provided.", text));
+            }
+            this.text = ignoreCase ? text.toLowerCase(Locale.ROOT) : text;
+            this.bytes = this.text.getBytes(US_ASCII);
+            this.ignoreCase = ignoreCase;
+        }
+
+        private boolean isIn(String line) {
+            if (!ignoreCase) {
+                return line.contains(text);
+            }
+            int lastStart = line.length() - text.length();
+            for (int start = 0; start <= lastStart; start++) {
+                if (line.regionMatches(true, start, text, 0, text.length())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isIn(ByteBuffer line, int from, int to) {
+            int lastStart = to - bytes.length;
+            for (int start = from; start <= lastStart; start++) {
+                int matched = 0;
+                while (matched < bytes.length && byteAt(line, start + matched) == bytes[matched]) {
+                    matched++;
+                }
+                if (matched == bytes.length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private byte byteAt(ByteBuffer line, int index) {
+            byte b = line.get(index);
+            if (ignoreCase && b >= 'A' && b <= 'Z') {
+                return (byte) (b + ('a' - 'A'));
+            }
+            return b;
+        }
+    }
+
+    /**
+     * A conservative single pass over a regex, collecting the runs of literal characters it requires.
+     * Returns null whenever the regex uses a construct whose required literals can't be determined.
+     */
+    private static final class RegexLiterals {
+
+        private final String regex;
+        private final List<Literal> literals = new ArrayList<>();
+        private final StringBuilder run = new StringBuilder();
+        private boolean runIgnoresCase;
+        private int lastAtomStart = -1;
+        private int index;
+
+        private RegexLiterals(String regex) {
+            this.regex = regex;
+        }
+
+        private List<Literal> extract() {
+            while (index < regex.length()) {
+                char c = regex.charAt(index);
+                switch (c) {
+                    case '\\':
+                        if (!escape()) {
+                            return null;
+                        }
+                        break;
+                    case '[':
+                        if (!skipCharacterClass()) {
+                            return null;
+                        }
+                        endRun();
+                        break;
+                    case '(':
+                        if (!group()) {
+                            return null;
+                        }
+                        break;
+                    case '|':
+                    case ')':
+                        return null;
+                    case '*':
+                    case '?':
+                        quantify(true, 1);
+                        break;
+                    case '+':
+                        quantify(false, 1);
+                        break;
+                    case '{':
+                        int end = regex.indexOf('}', index);
+                        if (end < 0) {
+                            return null;
+                        }
+                        quantify(regex.startsWith("{0", index), end - index + 1);
+                        break;
+                    default:
+                        if (c < 0x80 && c != '.' && c != '^' && c != '$') {
+                            appendToRun(c, false);
+                        } else {
+                            endRun();
+                        }
+                        index++;
+                }
+            }
+            endRun();
+            return literals;
+        }
+
+        private boolean escape() {
+            if (index + 1 >= regex.length()) {
+                return false;
+            }
+            char escaped = regex.charAt(index + 1);
+            if ("QExucpPNkc".indexOf(escaped) >= 0 || Character.isDigit(escaped)) {
+                return false;
+            }
+            if (escaped < 0x80 && !Character.isLetterOrDigit(escaped)) {
+                appendToRun(escaped, false);
+            } else {
+                endRun();
+            }
+            index += 2;
+            return true;
+        }
+
+        private boolean skipCharacterClass() {
+            int depth = 0;
+            while (index < regex.length()) {
+                char c = regex.charAt(index);
+                if (c == '\\') {
+                    index++;
+                } else if (c == '[') {
+                    depth++;
+                    if (regex.startsWith("^", index + 1)) {
+                        index++;
+                    }
+                    if (regex.startsWith("]", index + 1)) {
+                        index++;
+                    }
+                } else if (c == ']' && --depth == 0) {
+                    index++;
+                    return true;
+                }
+                index++;
+            }
+            return false;
+        }
+
+        private boolean group() {
+            int start = index + 1;
+            int depth = 0;
+            while (index < regex.length()) {
+                char c = regex.charAt(index);
+                if (c == '[') {
+                    if (!skipCharacterClass()) {
+                        return false;
+                    }
+                    continue;
+                }
+                if (c == '\\') {
+                    index++;
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')' && --depth == 0) {
+                    break;
+                }
+                index++;
+            }
+            if (index >= regex.length()) {
+                return false;
+            }
+            String body = regex.substring(start, index);
+            index++;
+
+            if (body.startsWith("?:")) {
+                body = body.substring(2);
+            } else if (body.startsWith("?")) {
+                if (body.matches("\\?[a-zA-Z-]+(:.*)?")) {
+                    return false;
+                }
+                endRun();
+                return true;
+            }
+            char caseVariant = caseVariantOf(body);
+            if (caseVariant != 0) {
+                appendToRun(caseVariant, true);
+            } else {
+                endRun();
+            }
+            return true;
+        }
+
+        /**
+         * @return The letter which every alternative of the group is a case of, as in "T|t", or 0 if there is none.
+         */
+        private static char caseVariantOf(String groupBody) {
+            String[] alternatives = groupBody.split("\\|", -1);
+            if (alternatives.length < 2) {
+                return 0;
+            }
+            char letter = 0;
+            for (String alternative : alternatives) {
+                if (alternative.length() != 1 || alternative.charAt(0) >= 0x80
+                        || !Character.isLetter(alternative.charAt(0))) {
+                    return 0;
+                }
+                char lowerCase = Character.toLowerCase(alternative.charAt(0));
+                if (letter != 0 && letter != lowerCase) {
+                    return 0;
+                }
+                letter = lowerCase;
+            }
+            return letter;
+        }
+
+        private void quantify(boolean optional, int length) {
+            if (optional && lastAtomStart >= 0) {
+                run.setLength(lastAtomStart);
+            }
+            endRun();
+            index += length;
+            if (index < regex.length() && (regex.charAt(index) == '?' || regex.charAt(index) == '+')) {
+                index++;
+            }
+        }
+
+        private void appendToRun(char c, boolean ignoreCase) {
+            lastAtomStart = run.length();
+            run.append(c);
+            runIgnoresCase |= ignoreCase;
+        }
+
+        private void endRun() {
+            if (run.length() > 0) {
+                literals.add(new Literal(run.toString(), runIgnoresCase));
+            }
+            run.setLength(0);
+            runIgnoresCase = false;
+            lastAtomStart = -1;
+        }
+    }
+}
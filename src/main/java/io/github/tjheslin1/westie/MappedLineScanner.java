@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import com.google.common.hash.Hasher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Iterates the lines of a memory-mapped UTF-8 file which pass at least one {@link LinePrefilter}.
+ * <p>
+ * Line boundaries and prefilters are checked against the mapped bytes, so lines which can't fail
+ * any rule are never decoded, and are not checked for malformed input.
+ * Lines are split on '\n', '\r' or "\r\n", as by {@link java.io.BufferedReader#readLine()}.
+ * <p>
+ * Files smaller than {@link #MAPPING_THRESHOLD_BYTES} are read into a heap buffer instead of being mapped.
+ * Java 8 can't unmap a buffer, so each mapping is held until garbage collected,
+ * and mapping every small file of a whole repository would exhaust the process' mappings
+ * and, on Windows, keep the files locked.
+ */
+class MappedLineScanner implements Iterator<String> {
+
+    static final long MAPPING_THRESHOLD_BYTES = 1024 * 1024;
+
+    private static final int HASH_CHUNK_SIZE = 8192;
+
+    private final ByteBuffer bytes;
+    private final List<LinePrefilter> prefilters;
+    private final boolean decodesEveryLine;
+    private final CharsetDecoder decoder = UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    private int position;
+    private String nextLine;
+
+    private MappedLineScanner(ByteBuffer bytes, List<LinePrefilter> prefilters) {
+        this.bytes = bytes;
+        this.prefilters = prefilters;
+        this.decodesEveryLine = prefilters.stream().anyMatch(LinePrefilter::matchesAnyLine);
+    }
+
+    /**
+     * @return A scanner over the file, or null if the file is too large to map into a single buffer.
+     */
+    static MappedLineScanner map(Path file, List<LinePrefilter> prefilters) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            if (size < MAPPING_THRESHOLD_BYTES) {
+                return new MappedLineScanner(read(channel, (int) size), prefilters);
+            }
+            return new MappedLineScanner(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), prefilters);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, int size) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(size);
+        while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+            // keep reading until the buffer is full or the file ends
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+    /**
+     * Puts the raw bytes of the whole file into 'hasher'.
+     */
+    void putContent(Hasher hasher) {
+        ByteBuffer content = bytes.duplicate();
+        byte[] chunk = new byte[HASH_CHUNK_SIZE];
+        while (content.hasRemaining()) {
+            int length = Math.min(chunk.length, content.remaining());
+            content.get(chunk, 0, length);
+            hasher.putBytes(chunk, 0, length);
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException if the next candidate line is not valid UTF-8.
+     */
+    @Override
+    public boolean hasNext() {
+        int limit = bytes.limit();
+        while (nextLine == null && position < limit) {
+            int lineStart = position;
+            int lineEnd = lineStart;
+            while (lineEnd < limit && !isLineTerminator(bytes.get(lineEnd))) {
+                lineEnd++;
+            }
+            position = afterLineTerminator(lineEnd, limit);
+
+            if (isCandidate(lineStart, lineEnd)) {
+                nextLine = decode(lineStart, lineEnd);
+            }
+        }
+        return nextLine != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String line = nextLine;
+        nextLine = null;
+        return line;
+    }
+
+    private boolean isCandidate(int lineStart, int lineEnd) {
+        if (decodesEveryLine) {
+            return true;
+        }
+        for (LinePrefilter prefilter : prefilters) {
+            if (prefilter.matches(bytes, lineStart, lineEnd)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String decode(int lineStart, int lineEnd) {
+        ByteBuffer line = bytes.duplicate();
+        line.limit(lineEnd).position(lineStart);
+        try {
+            CharBuffer chars = decoder.decode(line);
+            return chars.toString();
+        } catch (CharacterCodingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int afterLineTerminator(int lineEnd, int limit) {
+        if (lineEnd == limit) {
+            return limit;
+        }
+        if (bytes.get(lineEnd) == '\r' && lineEnd + 1 < limit && bytes.get(lineEnd + 1) == '\n') {
+            return lineEnd + 2;
+        }
+        return lineEnd + 1;
+    }
+
+    private static boolean isLineTerminator(byte b) {
+        return b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Include or exclude patterns, compiled once into {@link PathMatcher}'s.
+ * <p>
+ * Patterns use the syntax of {@link FileSystem#getPathMatcher(String)}, defaulting to 'glob:' when no syntax is given,
+ * and are matched against paths relative to the directory being analysed.
+ * A glob without a '/', such as `*_pb.java`, is matched against the file name wherever the file is.
+ * A glob starting with `**&#47;` also matches at the top of the directory.
+ * <p>
+ * Directories whose name matches a name-only glob, or which match a glob ending in `/**`,
+ * match {@link #matchesDirectory(Path)} so that a walk can skip everything under them.
+ */
+class PathPatterns {
+
+    private static final String GLOB_SYNTAX = "glob:";
+    private static final String REGEX_SYNTAX = "regex:";
+    private static final String ANY_DIRECTORY = "**/";
+    private static final String EVERYTHING_UNDER = "/**";
+
+    private final List<PathMatcher> pathMatchers = new ArrayList<>();
+    private final List<PathMatcher> fileNameMatchers = new ArrayList<>();
+    private final List<PathMatcher> directoryMatchers = new ArrayList<>();
+
+    private PathPatterns() {
+    }
+
+    static PathPatterns noPatterns() {
+        return new PathPatterns();
+    }
+
+    static PathPatterns compile(FileSystem fileSystem, List<String> patterns) {
+        PathPatterns pathPatterns = new PathPatterns();
+        for (String pattern : patterns) {
+            pathPatterns.add(fileSystem, pattern);
+        }
+        return pathPatterns;
+    }
+
+    boolean isEmpty() {
+        return pathMatchers.isEmpty() && fileNameMatchers.isEmpty();
+    }
+
+    boolean matchesFile(Path relativeFile) {
+        Path fileName = relativeFile.getFileName();
+        return anyMatch(pathMatchers, relativeFile) || (fileName != null && anyMatch(fileNameMatchers, fileName));
+    }
+
+    boolean matchesDirectory(Path relativeDirectory) {
+        Path directoryName = relativeDirectory.getFileName();
+        return anyMatch(directoryMatchers, relativeDirectory) || (directoryName != null && anyMatch(fileNameMatchers, directoryName));
+    }
+
+    private void add(FileSystem fileSystem, String pattern) {
+        if (pattern.startsWith(REGEX_SYNTAX)) {
+            pathMatchers.add(fileSystem.getPathMatcher(pattern));
+            return;
+        }
+
+        String glob = pattern.startsWith(GLOB_SYNTAX) ? pattern.substring(GLOB_SYNTAX.length()) : pattern;
+        if (!glob.contains("/")) {
+            fileNameMatchers.add(globMatcher(fileSystem, glob));
+            return;
+        }
+
+        addGlob(fileSystem, pathMatchers, glob);
+        if (glob.endsWith(EVERYTHING_UNDER)) {
+            addGlob(fileSystem, directoryMatchers, glob.substring(0, glob.length() - EVERYTHING_UNDER.length()));
+        }
+    }
+
+    private static void addGlob(FileSystem fileSystem, List<PathMatcher> matchers, String glob) {
+        matchers.add(globMatcher(fileSystem, glob));
+        if (glob.startsWith(ANY_DIRECTORY)) {
+            matchers.add(globMatcher(fileSystem, glob.substring(ANY_DIRECTORY.length())));
+        }
+    }
+
+    private static PathMatcher globMatcher(FileSystem fileSystem, String glob) {
+        return fileSystem.getPathMatcher(GLOB_SYNTAX + glob);
+    }
+
+    private static boolean anyMatch(List<PathMatcher> matchers, Path path) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+
+/**
+ * Finds the issue referenced by a to-do comment, for analysers which check the state of referenced issues.
+ * <p>
+ * The regexes are compiled once, on construction. Instances are immutable and safe to share between
+ * the threads of a parallel analysis.
+ */
+public final class TodoIssuePattern {
+
+    private static final String TODO_ISSUE_REGEX_FORMAT = ".*//.*(T|t)(O|o)(D|d)(O|o).*%s.*";
+
+    private final String issueTracker;
+    private final String issueRegex;
+    private final Pattern todoIssueLine;
+    private final Pattern issue;
+    private final LinePrefilter prefilter;
+
+    /**
+     * @param issueTracker The name of the issue tracker, used when reporting an issue which can't be found (e.g "Jira").
+     * @param issueRegex   The regex of an issue reference (e.g "MON-[0-9]{3}").
+     */
+    public TodoIssuePattern(String issueTracker, String issueRegex) {
+        String todoIssueRegex = format(TODO_ISSUE_REGEX_FORMAT, issueRegex);
+        this.issueTracker = issueTracker;
+        this.issueRegex = issueRegex;
+        this.todoIssueLine = Pattern.compile(todoIssueRegex);
+        this.issue = Pattern.compile(issueRegex);
+        this.prefilter = LinePrefilter.requiredBy(todoIssueRegex);
+    }
+
+    /**
+     * @return The literals a line must contain to reference an issue in a to-do comment.
+     */
+    public LinePrefilter prefilter() {
+        return prefilter;
+    }
+
+    /**
+     * @param line A line of a file.
+     * @return The first issue referenced in the line, if the line contains a to-do comment referencing an issue.
+     */
+    public Optional<String> referencedIssue(String line) {
+        if (!prefilter.matches(line) || !todoIssueLine.matcher(line).matches()) {
+            return Optional.empty();
+        }
+
+        Matcher matcher = issue.matcher(line);
+        if (matcher.find()) {
+            return Optional.of(matcher.group());
+        } else {
+            throw new IllegalStateException(format("Unable to find %s Issue in line '%s' using regex '%s'", issueTracker, line, issueRegex));
+        }
+    }
+}
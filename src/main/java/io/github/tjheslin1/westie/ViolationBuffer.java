@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+
+import static java.lang.String.format;
+
+/**
+ * Hands {@link Violation}'s found on an analysis thread over to a consuming thread,
+ * holding at most a fixed number of them at once.
+ */
+class ViolationBuffer implements Iterator<Violation> {
+
+    private static final Object END_OF_ANALYSIS = new Object();
+
+    private final BlockingQueue<Object> buffer;
+
+    private Object next;
+
+    ViolationBuffer(int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException(format("Expected a buffer size of at least 1. '%s' was provided.", bufferSize));
+        }
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    /**
+     * Waits for space in the buffer, stopping the analysis if the consumer has gone away.
+     */
+    void put(Violation violation) {
+        enqueue(violation);
+    }
+
+    void finish() {
+        enqueue(END_OF_ANALYSIS);
+    }
+
+    void fail(Exception failure) {
+        try {
+            buffer.put(failure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = take();
+        }
+        if (next instanceof Exception) {
+            throw failure((Exception) next);
+        }
+        return next != END_OF_ANALYSIS;
+    }
+
+    @Override
+    public Violation next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Violation violation = (Violation) next;
+        next = null;
+        return violation;
+    }
+
+    private void enqueue(Object element) {
+        try {
+            buffer.put(element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Analysis stopped as its violations are no longer being consumed.");
+        }
+    }
+
+    private Object take() {
+        try {
+            return buffer.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted whilst waiting for violations.");
+        }
+    }
+
+    private RuntimeException failure(Exception failure) {
+        if (failure instanceof RuntimeException) {
+            return (RuntimeException) failure;
+        }
+        if (failure instanceof IOException) {
+            return new UncheckedIOException((IOException) failure);
+        }
+        return new IllegalStateException(failure);
+    }
+}
@@ -0,0 +1,565 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import com.google.common.base.Throwables;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.github.tjheslin1.westie.infrastructure.WestieFileReader;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Collects many analysis rules, in the form of a {@link Predicate} which should return 'true' if analysis fails,
+ * and applies them all in a single walk of the directory specified in {@link WestieAnalyser}.
+ * <p>
+ * Each file is read once and every registered rule is applied to it before moving on to the next file.
+ * Violations are returned grouped by file, in the order the rules were registered.
+ * This order is kept when files are analysed in parallel.
+ */
+public class WestieAnalysisSession {
+
+    private static final int FILES_IN_FLIGHT_PER_WORKER = 4;
+
+    private final WestieDirectoryAnalyser directoryAnalyser;
+    private final WestieFileReader fileReader;
+    private final int parallelism;
+    private final ExecutorService executorService;
+    private final int executorParallelism;
+    private final Path incrementalCacheFile;
+    private final String rulesVersion;
+    private final boolean memoryMappedScan;
+    private final List<FileRule> rules = new ArrayList<>();
+
+    WestieAnalysisSession(WestieDirectoryAnalyser directoryAnalyser, WestieFileReader fileReader,
+                          int parallelism, ExecutorService executorService, int executorParallelism,
+                          Path incrementalCacheFile, String rulesVersion, boolean memoryMappedScan) {
+        this.directoryAnalyser = directoryAnalyser;
+        this.fileReader = fileReader;
+        this.parallelism = parallelism;
+        this.executorService = executorService;
+        this.executorParallelism = executorParallelism;
+        this.incrementalCacheFile = incrementalCacheFile;
+        this.rulesVersion = rulesVersion;
+        this.memoryMappedScan = memoryMappedScan;
+    }
+
+    /**
+     * Registers a rule which takes in the Path to each file.
+     *
+     * @param analyseFile      The {@link Predicate} should return true if the file fails the analysis check.
+     * @param violationMessage The message to print if a file fails analysis.
+     * @return this {@link WestieAnalysisSession} with the rule registered.
+     */
+    public WestieAnalysisSession analyseFile(Predicate<Path> analyseFile, String violationMessage) {
+        rules.add(new PathRule(analyseFile, violationMessage));
+        return this;
+    }
+
+    /**
+     * Registers a rule which takes in the content of each file as a String.
+     *
+     * @param analyseFile      The {@link Predicate} should return true if the file fails the analysis check.
+     * @param violationMessage The message to print if a file fails analysis.
+     * @return this {@link WestieAnalysisSession} with the rule registered.
+     */
+    public WestieAnalysisSession analyseFileContent(Predicate<String> analyseFile, String violationMessage) {
+        rules.add(new ContentRule(analyseFile, violationMessage));
+        return this;
+    }
+
+    /**
+     * Registers a rule which takes in each line of each file as a String.
+     *
+     * @param analyseLineInFile The {@link Predicate} should return true if the file's line fails the analysis check.
+     * @param violationMessage  The message to print if a file's line fails analysis.
+     * @return this {@link WestieAnalysisSession} with the rule registered.
+     */
+    public WestieAnalysisSession analyseLinesOfFile(Predicate<String> analyseLineInFile, String violationMessage) {
+        return analyseLinesOfFile(LinePrefilter.anyLine(), analyseLineInFile, violationMessage);
+    }
+
+    /**
+     * Registers a rule which takes in each line of each file, which passes the 'prefilter', as a String.
+     * Lines which don't pass the 'prefilter' never reach the {@link Predicate}, and when scanning memory-mapped files,
+     * are not decoded at all. See {@link LinePrefilter#requiredBy(String)} for a regex based {@link Predicate}.
+     *
+     * @param prefilter         The literals a line must contain for the {@link Predicate} to possibly return true.
+     * @param analyseLineInFile The {@link Predicate} should return true if the file's line fails the analysis check.
+     * @param violationMessage  The message to print if a file's line fails analysis.
+     * @return this {@link WestieAnalysisSession} with the rule registered.
+     */
+    public WestieAnalysisSession analyseLinesOfFile(LinePrefilter prefilter, Predicate<String> analyseLineInFile, String violationMessage) {
+        rules.add(new LinesRule(prefilter, () -> analyseLineInFile, violationMessage));
+        return this;
+    }
+
+    /**
+     * Registers a rule which takes in each line of each file, which passes the 'prefilter', as a String,
+     * using a new {@link Predicate} for each file. The {@link Predicate} is passed the file's lines in order,
+     * from a single thread, so it may keep state between them, such as the file's package declaration.
+     *
+     * @param prefilter        The literals a line must contain for the {@link Predicate} to possibly return true,
+     *                         or to be needed by a later line.
+     * @param newLineAnalyser  Creates the {@link Predicate} for a file, which should return true if the file's line
+     *                         fails the analysis check.
+     * @param violationMessage The message to print if a file's line fails analysis.
+     * @return this {@link WestieAnalysisSession} with the rule registered.
+     */
+    public WestieAnalysisSession analyseLinesOfEachFile(LinePrefilter prefilter, Supplier<? extends Predicate<String>> newLineAnalyser,
+                                                        String violationMessage) {
+        rules.add(new LinesRule(prefilter, newLineAnalyser, violationMessage));
+        return this;
+    }
+
+    /**
+     * Walks the directory once, applying every registered rule to each file.
+     *
+     * @return The a list of {@link Violation} for the files which have failed any of the registered rules.
+     * @throws IOException if an I/O error is thrown when accessing the directory.
+     */
+    public List<Violation> analyse() throws IOException {
+        List<Violation> violations = new ArrayList<>();
+        analyse(violations::add);
+        return violations;
+    }
+
+    /**
+     * Walks the directory once, applying every registered rule to each file and passing each {@link Violation}
+     * to the 'violationSink' as soon as it is found, rather than collecting them all first.
+     * <p>
+     * When analysing in parallel only a bounded number of files are analysed ahead of the sink,
+     * so memory use does not grow with the number of violations.
+     *
+     * @param violationSink Receives each {@link Violation}, in the same order as {@link #analyse()} would return them.
+     * @throws IOException if an I/O error is thrown when accessing the directory.
+     */
+    public void analyse(Consumer<? super Violation> violationSink) throws IOException {
+        IncrementalAnalysisCache incrementalCache = incrementalCacheFile == null ? null
+                : IncrementalAnalysisCache.load(incrementalCacheFile, rulesFingerprint());
+
+        if (executorService != null) {
+            analyseInParallel(executorService, executorParallelism, incrementalCache, violationSink);
+        } else if (parallelism > 1) {
+            ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+            try {
+                analyseInParallel(forkJoinPool, parallelism, incrementalCache, violationSink);
+            } finally {
+                forkJoinPool.shutdown();
+            }
+        } else if (readsAhead()) {
+            analyseReadingAhead(fileReader.readAhead(), incrementalCache, violationSink);
+        } else {
+            directoryAnalyser.walkFilesToAnalyse((file, attrs) ->
+                    analyseFile(file, attrs, incrementalCache).forEach(violationSink));
+        }
+
+        if (incrementalCache != null) {
+            incrementalCache.save();
+        }
+    }
+
+    /**
+     * Walks the directory once on a background thread, applying every registered rule to each file.
+     * <p>
+     * Violations are handed over through a buffer holding at most 'bufferSize' violations, the analysis waiting
+     * for the returned {@link Stream} to be consumed when it is full.
+     * Closing the {@link Stream} stops the analysis.
+     *
+     * @param bufferSize The maximum number of violations found but not yet consumed.
+     * @return A {@link Stream} of the {@link Violation}'s, in the same order as {@link #analyse()} would return them.
+     */
+    public Stream<Violation> violations(int bufferSize) {
+        ViolationBuffer violationBuffer = new ViolationBuffer(bufferSize);
+        Thread analysisThread = new Thread(() -> {
+            try {
+                analyse(violationBuffer::put);
+                violationBuffer.finish();
+            } catch (Exception e) {
+                violationBuffer.fail(e);
+            }
+        }, "westie-analysis-session");
+        analysisThread.setDaemon(true);
+        analysisThread.start();
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(violationBuffer, ORDERED | NONNULL), false)
+                .onClose(analysisThread::interrupt);
+    }
+
+    private boolean readsAhead() {
+        return fileReader.readAhead() > 0 && !memoryMappedScan && rules.stream().anyMatch(FileRule::readsFile);
+    }
+
+    /**
+     * Walks 'readAhead' files ahead of the file being analysed, letting the {@link WestieFileReader} prefetch them.
+     * Files whose violations will be replayed from the incremental cache are not prefetched.
+     */
+    private void analyseReadingAhead(int readAhead, IncrementalAnalysisCache incrementalCache,
+                                     Consumer<? super Violation> violationSink) throws IOException {
+        Deque<UpcomingFile> upcomingFiles = new ArrayDeque<>();
+        try {
+            directoryAnalyser.walkFilesToAnalyse((file, attrs) -> {
+                List<Violation> cachedViolations = incrementalCache == null ? null
+                        : incrementalCache.unchangedFileViolations(file, attrs);
+                if (cachedViolations == null) {
+                    fileReader.prefetch(file, attrs);
+                }
+                upcomingFiles.add(new UpcomingFile(file, attrs, cachedViolations));
+                if (upcomingFiles.size() > readAhead) {
+                    analyseUpcomingFile(upcomingFiles.poll(), incrementalCache).forEach(violationSink);
+                }
+            });
+            while (!upcomingFiles.isEmpty()) {
+                analyseUpcomingFile(upcomingFiles.poll(), incrementalCache).forEach(violationSink);
+            }
+        } finally {
+            fileReader.discardPrefetched();
+        }
+    }
+
+    private Stream<Violation> analyseUpcomingFile(UpcomingFile upcomingFile, IncrementalAnalysisCache incrementalCache) {
+        if (upcomingFile.cachedViolations != null) {
+            return upcomingFile.cachedViolations.stream();
+        }
+        return analyseChangedFile(upcomingFile.file, upcomingFile.attrs, incrementalCache);
+    }
+
+    private void analyseInParallel(ExecutorService executorService, int workers, IncrementalAnalysisCache incrementalCache,
+                                   Consumer<? super Violation> violationSink) throws IOException {
+        int maxFilesInFlight = workers * FILES_IN_FLIGHT_PER_WORKER;
+        Deque<Future<List<Violation>>> fileAnalyses = new ArrayDeque<>();
+        try {
+            directoryAnalyser.walkFilesToAnalyse((file, attrs) -> {
+                fileAnalyses.add(executorService.submit(() -> analyseFile(file, attrs, incrementalCache).collect(toList())));
+                while (!fileAnalyses.isEmpty() && (fileAnalyses.size() > maxFilesInFlight || fileAnalyses.peek().isDone())) {
+                    result(fileAnalyses.poll()).forEach(violationSink);
+                }
+            });
+            while (!fileAnalyses.isEmpty()) {
+                result(fileAnalyses.poll()).forEach(violationSink);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            fileAnalyses.forEach(fileAnalysis -> fileAnalysis.cancel(true));
+        }
+    }
+
+    private List<Violation> result(Future<List<Violation>> fileAnalysis) {
+        try {
+            return fileAnalysis.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted whilst waiting for file analysis to complete."));
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause());
+            throw new IllegalStateException("Error occurred analysing file.", e.getCause());
+        }
+    }
+
+    private Stream<Violation> analyseFile(Path file, BasicFileAttributes attrs, IncrementalAnalysisCache incrementalCache) {
+        if (incrementalCache != null) {
+            List<Violation> violations = incrementalCache.unchangedFileViolations(file, attrs);
+            if (violations != null) {
+                return violations.stream();
+            }
+        }
+        return analyseChangedFile(file, attrs, incrementalCache);
+    }
+
+    /**
+     * Analyses a file which {@link IncrementalAnalysisCache#unchangedFileViolations} has already been checked for,
+     * recording the violations found in the 'incrementalCache', if there is one, unless the file couldn't be read
+     * or a rule threw an exception.
+     */
+    private Stream<Violation> analyseChangedFile(Path file, BasicFileAttributes attrs, IncrementalAnalysisCache incrementalCache) {
+        AnalysedFile analysedFile = new AnalysedFile(file, fileReader);
+        if (incrementalCache == null) {
+            return applyRules(analysedFile);
+        }
+
+        List<Violation> violations = null;
+        String contentHash;
+        if (streamsLines()) {
+            Hasher contentHasher = IncrementalAnalysisCache.contentHasher();
+            violations = applyRulesInOnePass(analysedFile, contentHasher).collect(toList());
+            contentHash = contentHasher.hash().toString();
+        } else {
+            contentHash = contentHash(analysedFile);
+            if (contentHash != null) {
+                violations = incrementalCache.unchangedContentViolations(file, contentHash);
+            }
+            if (violations == null) {
+                violations = applyRules(analysedFile).collect(toList());
+            }
+        }
+        if (!analysedFile.failedToRead() && !analysedFile.failedToApplyRule()) {
+            incrementalCache.record(file, attrs, contentHash, violations);
+        }
+        return violations.stream();
+    }
+
+    private Stream<Violation> applyRules(AnalysedFile analysedFile) {
+        if (streamsLines()) {
+            return applyRulesInOnePass(analysedFile, null);
+        }
+        return rules.stream().flatMap(rule -> rule.analyse(analysedFile));
+    }
+
+    private boolean streamsLines() {
+        return rules.stream().anyMatch(rule -> rule instanceof LinesRule)
+                && rules.stream().noneMatch(rule -> rule instanceof ContentRule);
+    }
+
+    /**
+     * Without any rule needing the whole content, every line rule is applied during a single pass over the lines,
+     * so a {@link WestieFileReader} which streams large files never holds them in memory in full.
+     * The content hash, when one is needed, is computed in the same pass.
+     * <p>
+     * When scanning memory-mapped files, only lines passing the prefilter of at least one rule are decoded.
+     */
+    private Stream<Violation> applyRulesInOnePass(AnalysedFile analysedFile, Hasher contentHasher) {
+        List<List<Violation>> lineViolations = rules.stream()
+                .map(rule -> new ArrayList<Violation>())
+                .collect(toList());
+        List<Predicate<String>> lineAnalysers = rules.stream()
+                .map(rule -> rule instanceof LinesRule ? ((LinesRule) rule).newLineAnalyser.get() : null)
+                .collect(toList());
+        Consumer<String> analyseLine = line -> {
+            for (int i = 0; i < rules.size(); i++) {
+                FileRule rule = rules.get(i);
+                if (rule instanceof LinesRule) {
+                    ((LinesRule) rule).analyseLine(lineAnalysers.get(i), analysedFile.path(), line)
+                            .ifPresent(lineViolations.get(i)::add);
+                }
+            }
+        };
+
+        boolean read;
+        if (memoryMappedScan) {
+            List<LinePrefilter> prefilters = rules.stream()
+                    .filter(rule -> rule instanceof LinesRule)
+                    .map(rule -> ((LinesRule) rule).prefilter)
+                    .collect(toList());
+            read = analysedFile.forEachCandidateLine(prefilters, contentHasher, analyseLine);
+        } else {
+            read = analysedFile.forEachLine(line -> {
+                if (contentHasher != null) {
+                    IncrementalAnalysisCache.putLine(contentHasher, line);
+                }
+                analyseLine.accept(line);
+            });
+        }
+
+        return IntStream.range(0, rules.size()).boxed().flatMap(i -> {
+            FileRule rule = rules.get(i);
+            if (!(rule instanceof LinesRule)) {
+                return rule.analyse(analysedFile);
+            }
+            return read ? lineViolations.get(i).stream() : analysedFile.unableToRead();
+        });
+    }
+
+    private String contentHash(AnalysedFile analysedFile) {
+        if (rules.stream().noneMatch(FileRule::readsFile)) {
+            return null;
+        }
+        try {
+            return IncrementalAnalysisCache.contentHash(analysedFile.lines());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String rulesFingerprint() {
+        Hasher hasher = Hashing.murmur3_128().newHasher()
+                .putString(String.valueOf(rulesVersion), UTF_8)
+                .putBoolean(memoryMappedScan);
+        for (FileRule rule : rules) {
+            hasher.putString(rule.getClass().getSimpleName(), UTF_8)
+                    .putString(rule.violationMessage(), UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    private interface FileRule {
+        Stream<Violation> analyse(AnalysedFile file);
+
+        boolean readsFile();
+
+        String violationMessage();
+    }
+
+    private static final class UpcomingFile {
+
+        private final Path file;
+        private final BasicFileAttributes attrs;
+        private final List<Violation> cachedViolations;
+
+        private UpcomingFile(Path file, BasicFileAttributes attrs, List<Violation> cachedViolations) {
+            this.file = file;
+            this.attrs = attrs;
+            this.cachedViolations = cachedViolations;
+        }
+    }
+
+    private static class PathRule implements FileRule {
+
+        private final Predicate<Path> analyseFile;
+        private final String violationMessage;
+
+        private PathRule(Predicate<Path> analyseFile, String violationMessage) {
+            this.analyseFile = analyseFile;
+            this.violationMessage = violationMessage;
+        }
+
+        @Override
+        public boolean readsFile() {
+            return false;
+        }
+
+        @Override
+        public String violationMessage() {
+            return violationMessage;
+        }
+
+        @Override
+        public Stream<Violation> analyse(AnalysedFile file) {
+            try {
+                if (analyseFile.test(file.path())) {
+                    return Stream.of(new FileViolation(file.path(), violationMessage));
+                } else {
+                    return Stream.empty();
+                }
+            } catch (Exception e) {
+                return file.unableToApplyRule("Error occurred analysing file.\n" + e.getMessage());
+            }
+        }
+    }
+
+    private static class ContentRule implements FileRule {
+
+        private final Predicate<String> analyseFile;
+        private final String violationMessage;
+
+        private ContentRule(Predicate<String> analyseFile, String violationMessage) {
+            this.analyseFile = analyseFile;
+            this.violationMessage = violationMessage;
+        }
+
+        @Override
+        public boolean readsFile() {
+            return true;
+        }
+
+        @Override
+        public String violationMessage() {
+            return violationMessage;
+        }
+
+        @Override
+        public Stream<Violation> analyse(AnalysedFile file) {
+            String fileContent;
+            try {
+                fileContent = file.content();
+            } catch (Exception e) {
+                return file.unableToRead(e);
+            }
+
+            try {
+                if (analyseFile.test(fileContent)) {
+                    return Stream.of(new FileViolation(file.path(), violationMessage));
+                } else {
+                    return Stream.empty();
+                }
+            } catch (Exception e) {
+                return file.unableToApplyRule("Unable to read file.\n" + e.getMessage());
+            }
+        }
+    }
+
+    private static class LinesRule implements FileRule {
+
+        private final LinePrefilter prefilter;
+        private final Supplier<? extends Predicate<String>> newLineAnalyser;
+        private final String violationMessage;
+
+        private LinesRule(LinePrefilter prefilter, Supplier<? extends Predicate<String>> newLineAnalyser, String violationMessage) {
+            this.prefilter = prefilter;
+            this.newLineAnalyser = newLineAnalyser;
+            this.violationMessage = violationMessage;
+        }
+
+        @Override
+        public boolean readsFile() {
+            return true;
+        }
+
+        @Override
+        public String violationMessage() {
+            return violationMessage;
+        }
+
+        @Override
+        public Stream<Violation> analyse(AnalysedFile file) {
+            List<String> lines;
+            try {
+                lines = file.lines();
+            } catch (Exception e) {
+                return file.unableToRead(e);
+            }
+
+            Predicate<String> analyseLine = newLineAnalyser.get();
+            return lines.stream()
+                    .filter(line -> prefilter.matches(line) && analyseLine.test(line))
+                    .map(line -> new FileLineViolation(file.path(), line, violationMessage));
+        }
+
+        private Optional<Violation> analyseLine(Predicate<String> analyseLine, Path file, String line) {
+            if (prefilter.matches(line) && analyseLine.test(line)) {
+                return Optional.of(new FileLineViolation(file, line, violationMessage));
+            }
+            return Optional.empty();
+        }
+    }
+}
@@ -17,19 +17,27 @@
  */
 package io.github.tjheslin1.westie;
 
+import io.github.tjheslin1.westie.infrastructure.GitChangedFiles;
 import io.github.tjheslin1.westie.infrastructure.WestieFileReader;
 
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+import static java.lang.String.format;
 import static java.util.Collections.emptyList;
-import static java.util.stream.Collectors.toList;
 
 /**
  * Runs your provided analysis, in the form of a {@link Predicate} which should return 'true' if analysis fails,
@@ -41,12 +49,22 @@ public class WestieDirectoryAnalyser {
     private final String filetype;
     private final WestieFileReader fileReader;
 
-    private List<String> filesToIgnore = emptyList();
+    private IgnoredFiles ignoredFiles;
+    private PathPatterns includes = PathPatterns.noPatterns();
+    private PathPatterns excludes = PathPatterns.noPatterns();
+    private int parallelism = 1;
+    private ExecutorService executorService;
+    private int executorParallelism;
+    private Path incrementalCacheFile;
+    private String rulesVersion;
+    private String changedSinceRef;
+    private boolean memoryMappedScan;
 
     public WestieDirectoryAnalyser(Path pathToCheck, String filetype, WestieFileReader fileReader) {
         this.pathToCheck = pathToCheck;
         this.fileReader = fileReader;
         this.filetype = filetype;
+        this.ignoredFiles = IgnoredFiles.ignoredFiles(emptyList(), filetype);
     }
 
     /**
@@ -56,8 +74,7 @@ public class WestieDirectoryAnalyser {
      * @return this {@link WestieDirectoryAnalyser} back with 'fileToIgnore' set to the provided list.
      */
     public WestieDirectoryAnalyser ignoring(String... fileToIgnore) {
-        this.filesToIgnore = Arrays.asList(fileToIgnore);
-        return this;
+        return ignoring(Arrays.asList(fileToIgnore));
     }
 
     /**
@@ -67,10 +84,125 @@ public class WestieDirectoryAnalyser {
      * @return this {@link WestieDirectoryAnalyser} back with 'fileToIgnore' set to the provided list.
      */
     public WestieDirectoryAnalyser ignoring(List<String> fileToIgnore) {
-        this.filesToIgnore = fileToIgnore;
+        this.ignoredFiles = IgnoredFiles.ignoredFiles(fileToIgnore, filetype);
         return this;
     }
 
+    /**
+     * Sets the patterns of files to analyse, relative to the directory being analysed.
+     * Only files matching at least one pattern are analysed.
+     * <p>
+     * Patterns are globs, such as `src/**&#47;*.java`, unless prefixed with 'regex:'.
+     * A glob without a '/', such as `*Test.java`, matches the file name in any directory.
+     *
+     * @param includePatterns The glob or regex patterns of files to analyse.
+     * @return this {@link WestieDirectoryAnalyser} back with 'includes' set to the compiled patterns.
+     */
+    public WestieDirectoryAnalyser including(String... includePatterns) {
+        return including(Arrays.asList(includePatterns));
+    }
+
+    /**
+     * Sets the patterns of files to analyse, relative to the directory being analysed.
+     * Only files matching at least one pattern are analysed.
+     *
+     * @param includePatterns The glob or regex patterns of files to analyse.
+     * @return this {@link WestieDirectoryAnalyser} back with 'includes' set to the compiled patterns.
+     */
+    public WestieDirectoryAnalyser including(List<String> includePatterns) {
+        this.includes = PathPatterns.compile(pathToCheck.getFileSystem(), includePatterns);
+        return this;
+    }
+
+    /**
+     * Sets the patterns of files to exclude from analysis, relative to the directory being analysed.
+     * <p>
+     * Patterns are globs, such as `**&#47;generated/**` or `*_pb.java`, unless prefixed with 'regex:'.
+     * Directories matched by a glob ending in `/**`, or by a glob without a '/', are not walked at all.
+     *
+     * @param excludePatterns The glob or regex patterns of files exempt from analysis.
+     * @return this {@link WestieDirectoryAnalyser} back with 'excludes' set to the compiled patterns.
+     */
+    public WestieDirectoryAnalyser excluding(String... excludePatterns) {
+        return excluding(Arrays.asList(excludePatterns));
+    }
+
+    /**
+     * Sets the patterns of files to exclude from analysis, relative to the directory being analysed.
+     *
+     * @param excludePatterns The glob or regex patterns of files exempt from analysis.
+     * @return this {@link WestieDirectoryAnalyser} back with 'excludes' set to the compiled patterns.
+     */
+    public WestieDirectoryAnalyser excluding(List<String> excludePatterns) {
+        this.excludes = PathPatterns.compile(pathToCheck.getFileSystem(), excludePatterns);
+        return this;
+    }
+
+    /**
+     * Analyses files concurrently, using a {@link ForkJoinPool} created for each analysis.
+     * Violations are still returned in the same order as when analysing sequentially.
+     * <p>
+     * The provided {@link Predicate}'s must be safe to call from multiple threads.
+     *
+     * @param parallelism The number of files to analyse at once.
+     * @return this {@link WestieDirectoryAnalyser} back with 'parallelism' set to the provided value.
+     */
+    public WestieDirectoryAnalyser inParallel(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(format("Expected a parallelism of at least 1. '%s' was provided.", parallelism));
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Analyses files concurrently on the provided {@link ExecutorService}, which is left running afterwards.
+     * Violations are still returned in the same order as when analysing sequentially.
+     * <p>
+     * The number of files read ahead of the analysis is bounded by the executor's parallelism:
+     * the maximum pool size of a bounded {@link ThreadPoolExecutor} or the parallelism of a {@link ForkJoinPool}.
+     * For any other {@link ExecutorService} the number of available processors is assumed,
+     * see {@link #usingExecutor(ExecutorService, int)} to provide it instead.
+     * <p>
+     * The provided {@link Predicate}'s must be safe to call from multiple threads.
+     *
+     * @param executorService The {@link ExecutorService} on which to analyse files.
+     * @return this {@link WestieDirectoryAnalyser} back with 'executorService' set to the provided value.
+     */
+    public WestieDirectoryAnalyser usingExecutor(ExecutorService executorService) {
+        return usingExecutor(executorService, parallelismOf(executorService));
+    }
+
+    /**
+     * Analyses files concurrently on the provided {@link ExecutorService}, which is left running afterwards.
+     * Violations are still returned in the same order as when analysing sequentially.
+     * <p>
+     * The provided {@link Predicate}'s must be safe to call from multiple threads.
+     *
+     * @param executorService The {@link ExecutorService} on which to analyse files.
+     * @param parallelism     The number of files the executor analyses at once, which bounds the files read ahead.
+     * @return this {@link WestieDirectoryAnalyser} back with 'executorService' and 'parallelism' set to the provided values.
+     */
+    public WestieDirectoryAnalyser usingExecutor(ExecutorService executorService, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(format("Expected a parallelism of at least 1. '%s' was provided.", parallelism));
+        }
+        this.executorService = executorService;
+        this.executorParallelism = parallelism;
+        return this;
+    }
+
+    private static int parallelismOf(ExecutorService executorService) {
+        if (executorService instanceof ThreadPoolExecutor
+                && ((ThreadPoolExecutor) executorService).getMaximumPoolSize() < Integer.MAX_VALUE) {
+            return Math.max(1, ((ThreadPoolExecutor) executorService).getMaximumPoolSize());
+        }
+        if (executorService instanceof ForkJoinPool) {
+            return ((ForkJoinPool) executorService).getParallelism();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
     /**
      * Analyses the files under the directory provided in {@link WestieAnalyser},
      * applying the provided {@link Predicate}. The Predicate takes in the Path to the file.
@@ -83,10 +215,9 @@ public class WestieDirectoryAnalyser {
      * @throws IOException if an I/O error is thrown when accessing the file.
      */
     public List<Violation> analyseFile(Predicate<Path> analyseFile, String violationMessage) throws IOException {
-        return Files.walk(pathToCheck)
-                .filter(this::isFileToAnalyse)
-                .flatMap(file -> analyseFile(file, analyseFile, violationMessage))
-                .collect(toList());
+        return analysisSession()
+                .analyseFile(analyseFile, violationMessage)
+                .analyse();
     }
 
     /**
@@ -101,10 +232,9 @@ public class WestieDirectoryAnalyser {
      * @throws IOException if an I/O error is thrown when accessing the file.
      */
     public List<Violation> analyseFileContent(Predicate<String> analyseFile, String violationMessage) throws IOException {
-        return Files.walk(pathToCheck)
-                .filter(this::isFileToAnalyse)
-                .flatMap(file -> analyseFileContent(file, analyseFile, violationMessage))
-                .collect(toList());
+        return analysisSession()
+                .analyseFileContent(analyseFile, violationMessage)
+                .analyse();
     }
 
     /**
@@ -119,91 +249,158 @@ public class WestieDirectoryAnalyser {
      * @throws IOException if an I/O error is thrown when accessing the file.
      */
     public List<Violation> analyseLinesOfFile(Predicate<String> analyseLineInFile, String violationMessage) throws IOException {
-        return Files.walk(pathToCheck)
-                .filter(this::isFileToAnalyse)
-                .flatMap(file -> analyseFileLines(file, analyseLineInFile, violationMessage))
-                .collect(toList());
-    }
-
-    private Stream<Violation> analyseFile(Path file, Predicate<Path> analyseFile, String violationMessage) {
-        try {
-            if (analyseFile.test(file)) {
-                return Stream.of(new FileViolation(file, violationMessage));
-            } else {
-                return Stream.empty();
-            }
-        } catch (Exception e) {
-            return Stream.of(new FileViolation(file, "Error occurred analysing file.\n" + e.getMessage()));
-        }
+        return analysisSession()
+                .analyseLinesOfFile(analyseLineInFile, violationMessage)
+                .analyse();
     }
 
-    private Stream<Violation> analyseFileContent(Path file, Predicate<String> analyseFile, String violationMessage) {
-        try {
-            String fileContent = fileReader.readAllLines(file).stream().collect(Collectors.joining(System.lineSeparator()));
-            if (analyseFile.test(fileContent)) {
-                return Stream.of(new FileViolation(file, violationMessage));
-            } else {
-                return Stream.empty();
-            }
-        } catch (Exception e) {
-            return Stream.of(new FileViolation(file, "Unable to read file.\n" + e.getMessage()));
-        }
+    /**
+     * Persists the violations found in each file to 'cacheFile', for example under the build directory.
+     * On the next analysis, files whose size and last modified time, or content, are unchanged are not analysed again;
+     * their previous violations are replayed from the cache instead.
+     * <p>
+     * The cache is discarded whenever the rules change. As a {@link Predicate} can't be compared between runs,
+     * 'rulesVersion' must be changed whenever the logic of the rules does. Rules which depend on anything
+     * other than the file, such as the status of an issue, should not be cached.
+     *
+     * @param cacheFile    The file in which to persist the violations between runs.
+     * @param rulesVersion Identifies the version of the rules being applied.
+     * @return this {@link WestieDirectoryAnalyser} back with the incremental cache set.
+     */
+    public WestieDirectoryAnalyser cachingViolationsIn(Path cacheFile, String rulesVersion) {
+        this.incrementalCacheFile = cacheFile;
+        this.rulesVersion = rulesVersion;
+        return this;
     }
 
-    private Stream<Violation> analyseFileLines(Path file, Predicate<String> analyseLine, String violationMessage) {
-        try {
-            return fileReader.readAllLines(file).stream()
-                    .filter(analyseLine)
-                    .map(line -> new FileLineViolation(file, line, violationMessage));
-        } catch (Exception e) {
-            return Stream.of(new FileViolation(file, "Unable to read file.\n" + e.getMessage()));
-        }
+    /**
+     * Memory-maps each file and finds its lines directly in the mapped bytes, rather than reading it with the
+     * {@link WestieFileReader}, whenever only {@link #analyseFile} and {@link #analyseLinesOfFile} rules are applied.
+     * <p>
+     * Lines are only decoded if they pass the {@link LinePrefilter} of a rule registered with
+     * {@link WestieAnalysisSession#analyseLinesOfFile(LinePrefilter, Predicate, String)},
+     * so files are assumed to be UTF-8 and malformed input is only reported in decoded lines.
+     * Files under 1 MB are read into memory rather than mapped, as a mapping is only released once garbage collected.
+     *
+     * @return this {@link WestieDirectoryAnalyser} back with 'memoryMappedScan' enabled.
+     */
+    public WestieDirectoryAnalyser usingMemoryMappedScan() {
+        this.memoryMappedScan = true;
+        return this;
     }
 
-    private boolean isFileToAnalyse(Path file) {
-        return Files.isRegularFile(file) && !isHidden(file) && !filesParentIsHidden(file) && notAnExemptFile(file) && fileIsOfSpecifiedType(file);
+    /**
+     * Only analyses the files which the local git repository reports as changed relative to 'baseRef',
+     * either committed, staged or unstaged, along with untracked files which are not ignored by git.
+     * The directory is not walked; the changed files are filtered in the same way as walked files would be.
+     * <p>
+     * Requires `git` on the path and the directory being analysed to be within a git working tree.
+     *
+     * @param baseRef The commit, branch or tag to compare against (e.g "origin/master").
+     * @return this {@link WestieDirectoryAnalyser} back with 'changedSinceRef' set to the provided value.
+     */
+    public WestieDirectoryAnalyser onlyChangedSince(String baseRef) {
+        this.changedSinceRef = baseRef;
+        return this;
     }
 
-    private boolean isHidden(Path file) {
-        try {
-            return Files.isHidden(file);
-        } catch (IOException e) {
-            return false;
-        }
+    /**
+     * Starts a {@link WestieAnalysisSession}, allowing many rules to be applied to the files
+     * under the directory provided in {@link WestieAnalyser} in a single walk of the directory.
+     *
+     * @return A {@link WestieAnalysisSession} sharing this analyser's file type and ignored files.
+     */
+    public WestieAnalysisSession analysisSession() {
+        return new WestieAnalysisSession(this, fileReader, parallelism, executorService, executorParallelism, incrementalCacheFile, rulesVersion, memoryMappedScan);
     }
 
-    private boolean filesParentIsHidden(Path file) {
-        if (!isHidden(pathToCheck)) {
-            Path dirToCheck = file.getParent();
-            while (!dirToCheck.equals(pathToCheck)) {
-                if (isHidden(dirToCheck)) {
-                    return true;
+    /**
+     * Walks the directory, passing each file to analyse to 'fileToAnalyse' as it is found.
+     * Hidden and excluded directories, other than the directory being analysed, are skipped without visiting their contents.
+     * When only changed files are analysed, those files are visited in path order instead of walking the directory.
+     */
+    void walkFilesToAnalyse(BiConsumer<Path, BasicFileAttributes> fileToAnalyse) throws IOException {
+        if (changedSinceRef != null) {
+            visitChangedFiles(fileToAnalyse);
+            return;
+        }
+
+        Files.walkFileTree(pathToCheck, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (isSkippedDirectory(dir, attrs)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (isFileToAnalyse(file, attrs)) {
+                    fileToAnalyse.accept(file, attrs);
                 }
-                dirToCheck = dirToCheck.getParent();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void visitChangedFiles(BiConsumer<Path, BasicFileAttributes> fileToAnalyse) throws IOException {
+        Path root = pathToCheck.toRealPath();
+        for (Path changedFile : new GitChangedFiles(pathToCheck).changedSince(changedSinceRef)) {
+            if (!changedFile.startsWith(root) || changedFile.equals(root)) {
+                continue;
+            }
+
+            Path file = pathToCheck.resolve(root.relativize(changedFile));
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            if (!isInSkippedDirectory(file) && isFileToAnalyse(file, attrs)) {
+                fileToAnalyse.accept(file, attrs);
             }
         }
-        return false;
     }
 
-    private boolean fileIsOfSpecifiedType(Path file) {
-        if (filetype == null) {
-            return true;
+    private boolean isInSkippedDirectory(Path file) throws IOException {
+        for (Path dir = file.getParent(); dir != null && !dir.equals(pathToCheck); dir = dir.getParent()) {
+            if (isSkippedDirectory(dir, Files.readAttributes(dir, BasicFileAttributes.class))) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        return file.toString().endsWith(filetype);
+    private boolean isSkippedDirectory(Path dir, BasicFileAttributes attrs) {
+        return !dir.equals(pathToCheck) && (isHidden(dir, attrs) || excludes.matchesDirectory(pathToCheck.relativize(dir)));
+    }
+
+    private boolean isFileToAnalyse(Path file, BasicFileAttributes attrs) {
+        return isRegularFile(file, attrs) && !isHidden(file, attrs) && fileIsOfSpecifiedType(file)
+                && !ignoredFiles.isIgnored(file) && isIncludedAndNotExcluded(pathToCheck.relativize(file));
+    }
+
+    private boolean isIncludedAndNotExcluded(Path relativeFile) {
+        return (includes.isEmpty() || includes.matchesFile(relativeFile)) && !excludes.matchesFile(relativeFile);
+    }
+
+    private boolean isRegularFile(Path file, BasicFileAttributes attrs) {
+        if (attrs.isSymbolicLink()) {
+            return Files.isRegularFile(file);
+        }
+        return attrs.isRegularFile();
     }
 
-    private boolean notAnExemptFile(Path file) {
-        return filesToIgnore.stream()
-                .map(this::postfixedWithTypeExtension)
-                .noneMatch(exemptFile -> file.toString().endsWith(exemptFile));
+    private boolean isHidden(Path file, BasicFileAttributes attrs) {
+        if (attrs instanceof DosFileAttributes) {
+            return ((DosFileAttributes) attrs).isHidden();
+        }
+        Path fileName = file.getFileName();
+        return fileName != null && fileName.toString().startsWith(".");
     }
 
-    private String postfixedWithTypeExtension(String file) {
+    private boolean fileIsOfSpecifiedType(Path file) {
         if (filetype == null) {
-            return file;
+            return true;
         }
 
-        return file.endsWith(filetype) ? file : file + filetype;
+        return file.toString().endsWith(filetype);
     }
 }
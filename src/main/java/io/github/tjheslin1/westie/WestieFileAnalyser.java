@@ -17,6 +17,7 @@
  */
 package io.github.tjheslin1.westie;
 
+import io.github.tjheslin1.westie.infrastructure.FileContent;
 import io.github.tjheslin1.westie.infrastructure.WestieFileReader;
 
 import java.io.IOException;
@@ -24,7 +25,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
@@ -105,12 +105,11 @@ public class WestieFileAnalyser {
 
     private Stream<Violation> analyseFileContent(Path file, Predicate<String> analyseFile, String violationMessage) {
         try {
-            List<String> lines = fileReader.readAllLines(file);
-            if (lines.isEmpty()) {
+            FileContent fileContent = fileReader.readContent(file);
+            if (fileContent.isEmpty()) {
                 return Stream.of(new FileViolation(file, "Empty file!"));
             }
-            String fileContent = lines.stream().collect(Collectors.joining(System.lineSeparator()));
-            if (analyseFile.test(fileContent)) {
+            if (analyseFile.test(fileContent.content())) {
                 return Stream.of(new FileViolation(file, violationMessage));
             } else {
                 return Stream.empty();
@@ -19,6 +19,7 @@ package io.github.tjheslin1.westie.environmentproperties;
 
 import io.github.tjheslin1.westie.FileLineViolation;
 import io.github.tjheslin1.westie.FileViolation;
+import io.github.tjheslin1.westie.IgnoredFiles;
 import io.github.tjheslin1.westie.WestieAnalyser;
 
 import java.io.FileInputStream;
@@ -27,6 +28,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 
+import static io.github.tjheslin1.westie.IgnoredFiles.ignoredFiles;
 import static io.github.tjheslin1.westie.environmentproperties.FileKeySet.fileKeySet;
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
@@ -44,6 +46,8 @@ import static java.util.stream.Collectors.toList;
  */
 public class EnvironmentPropertiesAnalyser {
 
+    private static final String PROPERTIES_EXTENSION = ".properties";
+
     /**
      * Checks that `.properties` file share the same set of properties (keys) by
      * comparing them to the first file found.
@@ -66,9 +70,10 @@ public class EnvironmentPropertiesAnalyser {
      * @throws IOException if a problem reading the properties files occurs.
      */
     public List<FileViolation> propertiesProvidedForAllEnvironments(Path pathToCheck, List<String> propertiesFilesToIgnore) throws IOException {
+        IgnoredFiles ignoredFiles = ignoredFiles(propertiesFilesToIgnore, PROPERTIES_EXTENSION);
         List<FileKeySet> fileKeySets = Files.walk(pathToCheck)
                 .filter(this::isAPropertiesFile)
-                .filter(file -> notAnExemptFile(file, propertiesFilesToIgnore))
+                .filter(file -> !ignoredFiles.isIgnored(file))
                 .map(this::loadPropertiesKeys)
                 .collect(toList());
 
@@ -76,17 +81,7 @@ public class EnvironmentPropertiesAnalyser {
     }
 
     private boolean isAPropertiesFile(Path file) {
-        return file.toString().endsWith(".properties");
-    }
-
-    private boolean notAnExemptFile(Path file, List<String> filesToIgnore) {
-        return filesToIgnore.stream()
-                .map(this::postFixedWithPropertiesExtension)
-                .noneMatch(exemptFile -> file.toString().endsWith(exemptFile));
-    }
-
-    private String postFixedWithPropertiesExtension(String propertiesFile) {
-        return propertiesFile.endsWith(".properties") ? propertiesFile : propertiesFile + ".properties";
+        return file.toString().endsWith(PROPERTIES_EXTENSION);
     }
 
     private FileKeySet loadPropertiesKeys(Path file) {
@@ -17,18 +17,19 @@
  */
 package io.github.tjheslin1.westie.gitissue;
 
+import io.github.tjheslin1.westie.IssueReferenceAnalysis;
+import io.github.tjheslin1.westie.TodoIssuePattern;
 import io.github.tjheslin1.westie.Violation;
 import io.github.tjheslin1.westie.WestieAnalyser;
+import io.github.tjheslin1.westie.WestieAnalysisSession;
+import io.github.tjheslin1.westie.WestieDirectoryAnalyser;
 import io.github.tjheslin1.westie.infrastructure.GitIssues;
 import io.github.tjheslin1.westie.infrastructure.WestieFileReader;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 
 /**
@@ -37,21 +38,25 @@ import static java.util.Collections.emptyList;
  */
 public class GitIssueAnalyser {
 
-    private static final String GIT_TODO_REGEX_FORMAT = ".*//.*(T|t)(O|o)(D|d)(O|o).*%s.*";
+    private static final String VIOLATION_MESSAGE = "Violation was caused by a reference to a " +
+            "Git issue which is not in the open state.";
 
     private final GitIssues gitIssues;
-    private final String gitRegex;
+    private final TodoIssuePattern todoIssuePattern;
     private final WestieAnalyser westieAnalyser;
 
+    private IssueReferenceAnalysis issueReferenceAnalysis = new IssueReferenceAnalysis();
+    private boolean memoryMappedScan;
+
     public GitIssueAnalyser(GitIssues gitIssues, String gitRegex) {
         this.gitIssues = gitIssues;
-        this.gitRegex = gitRegex;
+        this.todoIssuePattern = new TodoIssuePattern("Git", gitRegex);
         this.westieAnalyser = new WestieAnalyser();
     }
 
     public GitIssueAnalyser(GitIssues gitIssues, String gitRegex, WestieFileReader fileReader) {
         this.gitIssues = gitIssues;
-        this.gitRegex = gitRegex;
+        this.todoIssuePattern = new TodoIssuePattern("Git", gitRegex);
         this.westieAnalyser = new WestieAnalyser(fileReader);
     }
 
@@ -76,29 +81,58 @@ public class GitIssueAnalyser {
      * @throws IOException if an I/O error occurs when opening the directory.
      */
     public List<Violation> todosAreInOpenState(Path pathToCheck, List<String> filesToIgnore) throws IOException {
-        return westieAnalyser.analyseDirectory(pathToCheck)
-                .forAllFiles().ignoring(filesToIgnore)
-                .analyseLinesOfFile(this::checkGitIssues, "Violation was caused by a reference to a " +
-                        "Git issue which is not in the open state.");
+        WestieDirectoryAnalyser directoryAnalyser = westieAnalyser.analyseDirectory(pathToCheck)
+                .forAllFiles().ignoring(filesToIgnore);
+        if (memoryMappedScan) {
+            directoryAnalyser.usingMemoryMappedScan();
+        }
+        return issueReferenceAnalysis.analyseWithAsyncLookups(directoryAnalyser.analysisSession(), todoIssuePattern, VIOLATION_MESSAGE,
+                gitIssues.githubApiHostname(), gitIssues::prefetchStates,
+                issue -> gitIssues.isGitIssueOpenAsync(issue).thenApply(open -> !open));
     }
 
-    private boolean checkGitIssues(String line) {
-        return isGitTodoLine(line) && gitIssueIsInNotInTheOpenState(line);
+    /**
+     * Scans memory-mapped files, only decoding the lines containing a to-do comment,
+     * see {@link WestieDirectoryAnalyser#usingMemoryMappedScan()}.
+     * <p>
+     * Files are assumed to be UTF-8 and are not read with the {@link WestieFileReader}, so byte order marks,
+     * charsets configured in a {@link io.github.tjheslin1.westie.infrastructure.FileLinesReader} and any cache are bypassed.
+     * A file which isn't valid UTF-8, or is binary, is only reported as unable to be read if the malformed input
+     * is on a to-do line. Files under 1 MB are read into memory rather than mapped.
+     *
+     * @return this {@link GitIssueAnalyser} back with 'memoryMappedScan' enabled.
+     */
+    public GitIssueAnalyser usingMemoryMappedScan() {
+        this.memoryMappedScan = true;
+        return this;
     }
 
-    private boolean isGitTodoLine(String line) {
-        return line.matches(format(GIT_TODO_REGEX_FORMAT, gitRegex));
+    /**
+     * Bounds how many issues {@link #todosAreInOpenState} looks up at once.
+     *
+     * @param issueReferenceAnalysis Looks up the referenced issues, see {@link IssueReferenceAnalysis}.
+     * @return this {@link GitIssueAnalyser} back with 'issueReferenceAnalysis' set.
+     */
+    public GitIssueAnalyser lookingUpIssuesWith(IssueReferenceAnalysis issueReferenceAnalysis) {
+        this.issueReferenceAnalysis = issueReferenceAnalysis;
+        return this;
     }
 
-    private boolean gitIssueIsInNotInTheOpenState(String line) {
-        Pattern pattern = Pattern.compile(gitRegex);
-        Matcher matcher = pattern.matcher(line);
+    /**
+     * Registers this analyser's rule with a {@link WestieAnalysisSession}, so that it is applied
+     * in the same walk of the directory as any other registered rules.
+     * Unlike {@link #todosAreInOpenState}, issues are looked up one at a time, as their lines are found.
+     *
+     * @param analysisSession The session to register the rule with.
+     * @return The provided {@link WestieAnalysisSession}, with the rule registered.
+     */
+    public WestieAnalysisSession registerRules(WestieAnalysisSession analysisSession) {
+        return analysisSession.analyseLinesOfFile(todoIssuePattern.prefilter(), this::checkGitIssues, VIOLATION_MESSAGE);
+    }
 
-        if (matcher.find()) {
-            String issue = matcher.group();
-            return !gitIssues.isGitIssueOpen(issue);
-        } else {
-            throw new IllegalStateException(format("Unable to find Git Issue in line '%s' using regex '%s'", line, gitRegex));
-        }
+    private boolean checkGitIssues(String line) {
+        return todoIssuePattern.referencedIssue(line)
+                .map(issue -> !gitIssues.isGitIssueOpen(issue))
+                .orElse(false);
     }
 }
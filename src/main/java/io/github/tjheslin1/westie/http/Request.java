@@ -20,8 +20,13 @@ package io.github.tjheslin1.westie.http;
 import io.github.tjheslin1.westie.ValueType;
 
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
 import static java.lang.String.format;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.stream.Collectors.joining;
 
 /**
@@ -32,13 +37,24 @@ public class Request extends ValueType {
     public final String url;
     public final String method;
     public final String body;
+    public final Map<String, String> headers;
     private List<QueryParameter> queryParameters;
 
     public Request(String url, String method, String body, List<QueryParameter> queryParameters) {
+        this(url, method, body, queryParameters, emptyMap());
+    }
+
+    /**
+     * @param headers The request headers by name, such as "If-None-Match". Names are compared ignoring case.
+     */
+    public Request(String url, String method, String body, List<QueryParameter> queryParameters, Map<String, String> headers) {
         this.url = url;
         this.method = method;
         this.body = body;
         this.queryParameters = queryParameters;
+        Map<String, String> caseInsensitiveHeaders = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        caseInsensitiveHeaders.putAll(headers);
+        this.headers = unmodifiableMap(caseInsensitiveHeaders);
     }
 
     /**
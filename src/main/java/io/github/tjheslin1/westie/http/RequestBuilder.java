@@ -18,7 +18,9 @@
 package io.github.tjheslin1.westie.http;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Builder pattern for constructing a HTTP {@link Request}.
@@ -29,6 +31,7 @@ public class RequestBuilder {
     private String method;
     private String body = "";
     private List<QueryParameter> queryParameters = new ArrayList<>();
+    private Map<String, String> headers = new LinkedHashMap<>();
 
     public RequestBuilder url(String url) {
         this.url = url;
@@ -73,10 +76,20 @@ public class RequestBuilder {
         return this;
     }
 
+    /**
+     * @param name  The name of the header to send with the {@link Request} (e.g "If-None-Match").
+     * @param value The value of the header.
+     * @return The current state of the {@link RequestBuilder}
+     */
+    public RequestBuilder withHeader(String name, String value) {
+        this.headers.put(name, value);
+        return this;
+    }
+
     /**
      * @return A {@link Request} constructed with the fields set by the builder methods.
      */
     public Request build() {
-        return new Request(url, method, body, queryParameters);
+        return new Request(url, method, body, queryParameters, headers);
     }
 }
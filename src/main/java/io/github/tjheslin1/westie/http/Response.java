@@ -19,7 +19,14 @@ package io.github.tjheslin1.westie.http;
 
 import io.github.tjheslin1.westie.ValueType;
 
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static java.lang.String.CASE_INSENSITIVE_ORDER;
 import static java.lang.String.format;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
 
 /**
  * Domain representation of a HTTP response.
@@ -29,11 +36,22 @@ public class Response extends ValueType {
     public final int statusCode;
     public final String body;
     public final String protocol;
+    public final Map<String, String> headers;
 
     public Response(int statusCode, String body, String protocol) {
+        this(statusCode, body, protocol, emptyMap());
+    }
+
+    /**
+     * @param headers The response headers by name, such as "ETag". Names are compared ignoring case.
+     */
+    public Response(int statusCode, String body, String protocol, Map<String, String> headers) {
         this.statusCode = statusCode;
         this.body = body;
         this.protocol = protocol;
+        Map<String, String> caseInsensitiveHeaders = new TreeMap<>(CASE_INSENSITIVE_ORDER);
+        caseInsensitiveHeaders.putAll(headers);
+        this.headers = unmodifiableMap(caseInsensitiveHeaders);
     }
 
     /**
@@ -43,6 +61,21 @@ public class Response extends ValueType {
         return statusCode < 300;
     }
 
+    /**
+     * @return true if the statusCode is 304, the resource being unchanged since the conditional request's validators.
+     */
+    public boolean isNotModified() {
+        return statusCode == 304;
+    }
+
+    /**
+     * @param name The name of the header, in any case (e.g "ETag").
+     * @return The value of the header, if the response has it.
+     */
+    public Optional<String> header(String name) {
+        return Optional.ofNullable(headers.get(name));
+    }
+
     /**
      * @return The response in a readable format.
      */
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.importrestrictions;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A list of {@link ImportRestriction}'s compiled once, so an import line is matched against every restriction
+ * in a single scan and a package line is checked against every accepted package in a single walk of a trie.
+ * <p>
+ * As when checking the restrictions in turn, the first restriction whose regex matches the import line applies.
+ * Once constructed, it is safe to share between threads.
+ */
+class ImportRestrictionMatcher {
+
+    private static final Pattern BACK_REFERENCE_OR_INLINE_FLAGS = Pattern.compile("\\\\[0-9]|\\\\k<|\\(\\?[a-zA-Z-]+[:)]");
+    private static final int NO_RESTRICTION = -1;
+
+    private final List<Pattern> importRegexes;
+    private final Pattern combinedImportRegex;
+    private final int[] restrictionGroups;
+    private final PackageTrie acceptedPackages = new PackageTrie();
+
+    ImportRestrictionMatcher(List<ImportRestriction> importRestrictions) {
+        this.importRegexes = importRestrictions.stream()
+                .map(importRestriction -> Pattern.compile(importRestriction.importRegex))
+                .collect(toList());
+        this.restrictionGroups = new int[importRestrictions.size()];
+        this.combinedImportRegex = combine(importRestrictions);
+        for (int i = 0; i < importRestrictions.size(); i++) {
+            acceptedPackages.add(format("package %s", importRestrictions.get(i).packagePath), i);
+        }
+    }
+
+    /**
+     * @param packageLine The package declaration of the file, or null if it has none.
+     * @param importLine  An import line of the file.
+     * @return true if the first restriction matching the import doesn't accept the file's package.
+     */
+    boolean usedOutsideOfAcceptedPackage(String packageLine, String importLine) {
+        int restriction = firstMatchingRestriction(importLine);
+        return restriction != NO_RESTRICTION
+                && (packageLine == null || !acceptedPackages.prefixesOf(packageLine).get(restriction));
+    }
+
+    int firstMatchingRestriction(String importLine) {
+        if (combinedImportRegex == null) {
+            for (int i = 0; i < importRegexes.size(); i++) {
+                if (importRegexes.get(i).matcher(importLine).matches()) {
+                    return i;
+                }
+            }
+            return NO_RESTRICTION;
+        }
+
+        Matcher matcher = combinedImportRegex.matcher(importLine);
+        if (!matcher.matches()) {
+            return NO_RESTRICTION;
+        }
+        for (int i = 0; i < restrictionGroups.length; i++) {
+            if (matcher.start(restrictionGroups[i]) >= 0) {
+                return i;
+            }
+        }
+        return NO_RESTRICTION;
+    }
+
+    /**
+     * Joins the regexes into one alternation, each in its own group. Alternatives are tried in order,
+     * so the group which took part in the match is the first restriction whose regex matches the whole line.
+     * Regexes whose meaning would change within the alternation, through numbered back references, inline flags
+     * or clashing group names, are matched in turn instead.
+     */
+    private Pattern combine(List<ImportRestriction> importRestrictions) {
+        if (importRestrictions.isEmpty() || importRestrictions.stream()
+                .anyMatch(importRestriction -> BACK_REFERENCE_OR_INLINE_FLAGS.matcher(importRestriction.importRegex).find())) {
+            return null;
+        }
+
+        StringBuilder combinedRegex = new StringBuilder();
+        int group = 1;
+        for (int i = 0; i < importRestrictions.size(); i++) {
+            if (i > 0) {
+                combinedRegex.append('|');
+            }
+            combinedRegex.append('(').append(importRestrictions.get(i).importRegex).append(')');
+            restrictionGroups[i] = group;
+            group += 1 + importRegexes.get(i).matcher("").groupCount();
+        }
+
+        try {
+            return Pattern.compile(combinedRegex.toString());
+        } catch (PatternSyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The accepted package lines of the restrictions, by character, so that every accepted package line
+     * which the file's package line starts with is found in one walk along it.
+     */
+    private static class PackageTrie {
+
+        private final Node root = new Node();
+
+        private void add(String acceptedPackageLine, int restriction) {
+            Node node = root;
+            for (int i = 0; i < acceptedPackageLine.length(); i++) {
+                node = node.children.computeIfAbsent(acceptedPackageLine.charAt(i), c -> new Node());
+            }
+            node.restrictions.add(restriction);
+        }
+
+        private BitSet prefixesOf(String packageLine) {
+            BitSet prefixes = new BitSet();
+            Node node = root;
+            for (int i = 0; node != null; i++) {
+                node.restrictions.forEach(prefixes::set);
+                node = i < packageLine.length() ? node.children.get(packageLine.charAt(i)) : null;
+            }
+            return prefixes;
+        }
+    }
+
+    private static class Node {
+
+        private final Map<Character, Node> children = new HashMap<>();
+        private final List<Integer> restrictions = new ArrayList<>();
+    }
+}
@@ -18,15 +18,17 @@
 package io.github.tjheslin1.westie.importrestrictions;
 
 import io.github.tjheslin1.westie.FileViolation;
+import io.github.tjheslin1.westie.LinePrefilter;
 import io.github.tjheslin1.westie.Violation;
 import io.github.tjheslin1.westie.WestieAnalyser;
+import io.github.tjheslin1.westie.WestieAnalysisSession;
 import io.github.tjheslin1.westie.infrastructure.WestieFileReader;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Predicate;
 
-import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 
 /**
@@ -34,18 +36,21 @@ import static java.util.Collections.emptyList;
  */
 public class ImportsRestrictionAnalyser {
 
-    private final List<ImportRestriction> importRestrictions;
-    private final WestieAnalyser westieAnalyser;
+    private static final String VIOLATION_MESSAGE = "Violation was caused by the above import which " +
+            "was used outside of its accepted package.";
+    private static final LinePrefilter PACKAGE_OR_IMPORT_PREFILTER = LinePrefilter.containing("package ")
+            .or(LinePrefilter.containing("import "));
 
-    private String packageLine;
+    private final ImportRestrictionMatcher importRestrictions;
+    private final WestieAnalyser westieAnalyser;
 
     public ImportsRestrictionAnalyser(List<ImportRestriction> importRestrictions) {
-        this.importRestrictions = importRestrictions;
+        this.importRestrictions = new ImportRestrictionMatcher(importRestrictions);
         this.westieAnalyser = new WestieAnalyser();
     }
 
     public ImportsRestrictionAnalyser(List<ImportRestriction> importRestrictions, WestieFileReader fileReader) {
-        this.importRestrictions = importRestrictions;
+        this.importRestrictions = new ImportRestrictionMatcher(importRestrictions);
         this.westieAnalyser = new WestieAnalyser(fileReader);
     }
 
@@ -71,30 +76,42 @@ public class ImportsRestrictionAnalyser {
      * @throws IOException if an I/O error occurs when opening the directory.
      */
     public List<Violation> checkImportsAreOnlyUsedInAcceptedPackages(Path pathToCheck, List<String> filesToIgnore) throws IOException {
-        return westieAnalyser.analyseDirectory(pathToCheck)
+        return registerRules(westieAnalyser
+                .analyseDirectory(pathToCheck)
                 .forJavaFiles().ignoring(filesToIgnore)
-                .analyseLinesOfFile(this::verifyImports, "Violation was caused by the above import which " +
-                        "was used outside of its accepted package.");
+                .analysisSession()).analyse();
     }
 
-    private boolean verifyImports(String line) {
-        if (packageLine == null && line.startsWith("package")) {
-            packageLine = line;
-        }
-
-        return isImportLine(line) && importUsedOutsideOfAcceptedPackage(packageLine, line);
+    /**
+     * Registers this analyser's rule with a {@link WestieAnalysisSession}, so that it is applied
+     * in the same walk of the directory as any other registered rules.
+     * Each file's imports are checked against that file's own package line.
+     *
+     * @param analysisSession The session to register the rule with.
+     * @return The provided {@link WestieAnalysisSession}, with the rule registered.
+     */
+    public WestieAnalysisSession registerRules(WestieAnalysisSession analysisSession) {
+        return analysisSession.analyseLinesOfEachFile(PACKAGE_OR_IMPORT_PREFILTER, ImportsOfFile::new, VIOLATION_MESSAGE);
     }
 
-    private boolean isImportLine(String line) {
-        return line.startsWith("import ");
-    }
+    /**
+     * Checks the import lines of a single file, remembering the file's package line once it has been read.
+     */
+    private class ImportsOfFile implements Predicate<String> {
+
+        private String packageLine;
 
-    private boolean importUsedOutsideOfAcceptedPackage(String packageLine, String importLine) {
-        for (ImportRestriction importRestriction : importRestrictions) {
-            if (importLine.matches(importRestriction.importRegex)) {
-                return !packageLine.startsWith(format("package %s", importRestriction.packagePath));
+        @Override
+        public boolean test(String line) {
+            if (packageLine == null && line.startsWith("package")) {
+                packageLine = line;
             }
+
+            return isImportLine(line) && importRestrictions.usedOutsideOfAcceptedPackage(packageLine, line);
+        }
+
+        private boolean isImportLine(String line) {
+            return line.startsWith("import ");
         }
-        return false;
     }
 }
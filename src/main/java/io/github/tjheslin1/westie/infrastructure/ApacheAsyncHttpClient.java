@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import io.github.tjheslin1.westie.HttpClient;
+import io.github.tjheslin1.westie.http.Request;
+import io.github.tjheslin1.westie.http.Response;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.lang.String.format;
+
+/**
+ * Implementation of {@link HttpClient} which uses 'org.apache.http.nio.client.HttpAsyncClient',
+ * so that many requests can be in flight at once on a couple of I/O threads.
+ * <p>
+ * Waiting for a pooled connection, connecting and waiting for data are each bounded by the 'timeout',
+ * so a stalled host fails its requests rather than holding their connections.
+ * Must be closed once no more requests are to be sent, to stop its I/O threads.
+ */
+public class ApacheAsyncHttpClient implements HttpClient, AutoCloseable {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * How often the I/O threads check for timed out requests, unless the 'timeout' is shorter.
+     */
+    private static final int DEFAULT_SELECT_INTERVAL_MILLIS = 1000;
+
+    private final CloseableHttpAsyncClient httpAsyncClient;
+    private final Duration responseTimeout;
+
+    /**
+     * Times out requests after {@link #DEFAULT_TIMEOUT}.
+     *
+     * @param ioThreads             The number of threads sending and receiving requests (e.g 2).
+     * @param maxConnectionsPerHost The maximum number of connections open to a single host at once.
+     * @param maxConnections        The maximum number of connections open at once.
+     */
+    public ApacheAsyncHttpClient(int ioThreads, int maxConnectionsPerHost, int maxConnections) {
+        this(ioThreads, maxConnectionsPerHost, maxConnections, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param ioThreads             The number of threads sending and receiving requests (e.g 2).
+     * @param maxConnectionsPerHost The maximum number of connections open to a single host at once.
+     * @param maxConnections        The maximum number of connections open at once.
+     * @param timeout               The longest to wait for a connection from the pool, to connect,
+     *                              or between packets of the response (e.g 10 seconds).
+     */
+    public ApacheAsyncHttpClient(int ioThreads, int maxConnectionsPerHost, int maxConnections, Duration timeout) {
+        int timeoutMillis = Math.toIntExact(timeout.toMillis());
+        this.responseTimeout = timeout.multipliedBy(4);
+        httpAsyncClient = HttpAsyncClients.custom()
+                .setDefaultIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(ioThreads)
+                        .setSelectInterval(Math.min(DEFAULT_SELECT_INTERVAL_MILLIS, timeoutMillis))
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(timeoutMillis)
+                        .setConnectTimeout(timeoutMillis)
+                        .setSocketTimeout(timeoutMillis)
+                        .build())
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                .setMaxConnTotal(maxConnections)
+                .build();
+        httpAsyncClient.start();
+    }
+
+    /**
+     * Sends the {@link Request} and blocks until its {@link Response} is received.
+     * <p>
+     * The request fails with the I/O error of whichever 'timeout' it exceeds. Waiting for the whole response
+     * is only bounded by four times the 'timeout', one for each of them in turn plus a margin,
+     * in case a host keeps sending a response too slowly to ever exceed the 'timeout' between packets.
+     *
+     * @param request The {@link Request} to be sent.
+     * @return The {@link Response} which has been adapted from a {@link HttpResponse}.
+     * @throws IOException if an I/O exeception occurs during the HTTP request/response, or it times out.
+     */
+    @Override
+    public Response execute(Request request) throws IOException {
+        CompletableFuture<Response> response = executeAsync(request);
+        try {
+            return response.get(responseTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            throw new SocketTimeoutException(format("No response to '%s' within %s", request, responseTimeout));
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(format("Interrupted whilst waiting for the response to '%s'", request));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(format("Problem sending request '%s'", request), e.getCause());
+        }
+    }
+
+    /**
+     * Adapts the {@link Request} to an Apache request and sends it without blocking.
+     * Cancelling the returned future aborts the request.
+     *
+     * @param request The {@link Request} to be sent.
+     * @return A future completed with the {@link Response} which has been adapted from a {@link HttpResponse}.
+     */
+    @Override
+    public CompletableFuture<Response> executeAsync(Request request) {
+        CompletableFuture<Response> response = new CompletableFuture<>();
+        try {
+            Future<HttpResponse> sentRequest = httpAsyncClient.execute(ApacheHttpClient.adaptRequest(request), new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse httpResponse) {
+                    try {
+                        response.complete(ApacheHttpClient.adaptResponse(httpResponse));
+                    } catch (IOException | RuntimeException e) {
+                        response.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    response.completeExceptionally(e);
+                }
+
+                @Override
+                public void cancelled() {
+                    response.cancel(false);
+                }
+            });
+            response.whenComplete((completed, failure) -> {
+                if (response.isCancelled()) {
+                    sentRequest.cancel(true);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
+
+    /**
+     * Stops the I/O threads, cancelling any requests still in flight.
+     *
+     * @throws IOException if an I/O exception occurs whilst closing connections.
+     */
+    @Override
+    public void close() throws IOException {
+        httpAsyncClient.close();
+    }
+}
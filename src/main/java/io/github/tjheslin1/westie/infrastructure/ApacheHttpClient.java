@@ -20,6 +20,7 @@ package io.github.tjheslin1.westie.infrastructure;
 import io.github.tjheslin1.westie.HttpClient;
 import io.github.tjheslin1.westie.http.Request;
 import io.github.tjheslin1.westie.http.Response;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
@@ -34,6 +35,8 @@ import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
@@ -43,11 +46,37 @@ import static java.lang.String.format;
  */
 public class ApacheHttpClient implements HttpClient {
 
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+    public static final int DEFAULT_MAX_CONNECTIONS = 8;
+
     private final org.apache.http.client.HttpClient httpClient;
 
+    /**
+     * Pools {@link #DEFAULT_MAX_CONNECTIONS_PER_HOST} connections to each host,
+     * and {@link #DEFAULT_MAX_CONNECTIONS} in total.
+     *
+     * @param maxIdleTime How long a pooled connection may be idle before it is closed.
+     */
     public ApacheHttpClient(Duration maxIdleTime) {
+        this(maxIdleTime, DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @param maxIdleTime           How long a pooled connection may be idle before it is closed.
+     * @param maxConnectionsPerHost The maximum number of connections open to a single host, which should be at least
+     *                              the 'maxInFlightPerHost' of the {@code IssueReferenceAnalysis} using this client.
+     * @param maxConnections        The maximum number of connections open in total, which should be at least
+     *                              the 'maxInFlight' of the {@code IssueReferenceAnalysis} using this client.
+     */
+    public ApacheHttpClient(Duration maxIdleTime, int maxConnectionsPerHost, int maxConnections) {
+        if (maxConnectionsPerHost < 1 || maxConnections < maxConnectionsPerHost) {
+            throw new IllegalArgumentException(format("Expected at least one connection per host, and no fewer in total. " +
+                    "maxConnectionsPerHost '%s' and maxConnections '%s' were provided.", maxConnectionsPerHost, maxConnections));
+        }
         httpClient = HttpClientBuilder.create()
                 .evictIdleConnections(maxIdleTime.getSeconds(), TimeUnit.SECONDS)
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                .setMaxConnTotal(maxConnections)
                 .build();
     }
 
@@ -64,13 +93,14 @@ public class ApacheHttpClient implements HttpClient {
         return adaptResponse(response);
     }
 
-    private HttpUriRequest adaptRequest(Request request) throws IOException {
+    static HttpUriRequest adaptRequest(Request request) throws IOException {
         GenericHttpUriRequest httpUriRequest = new GenericHttpUriRequest(request.method, adaptUrl(request));
+        request.headers.forEach(httpUriRequest::setHeader);
         adaptBody(request, httpUriRequest);
         return httpUriRequest;
     }
 
-    private void adaptBody(Request request, GenericHttpUriRequest httpUriRequest) throws IOException {
+    private static void adaptBody(Request request, GenericHttpUriRequest httpUriRequest) throws IOException {
         if (!request.body.isEmpty()) {
             try {
                 httpUriRequest.setEntity(new StringEntity(request.body));
@@ -80,13 +110,14 @@ public class ApacheHttpClient implements HttpClient {
         }
     }
 
-    private Response adaptResponse(HttpResponse response) throws IOException {
+    static Response adaptResponse(HttpResponse response) throws IOException {
         return new Response(adaptStatusCode(response),
                 adaptBody(response),
-                adaptProtocol(response));
+                adaptProtocol(response),
+                adaptHeaders(response));
     }
 
-    private URI adaptUrl(Request request) throws IOException {
+    private static URI adaptUrl(Request request) throws IOException {
         try {
             return new URIBuilder(request.url).build();
         } catch (URISyntaxException e) {
@@ -94,11 +125,11 @@ public class ApacheHttpClient implements HttpClient {
         }
     }
 
-    private String adaptProtocol(HttpResponse response) {
+    private static String adaptProtocol(HttpResponse response) {
         return response.getProtocolVersion().toString().toUpperCase();
     }
 
-    private String adaptBody(HttpResponse response) throws IOException {
+    private static String adaptBody(HttpResponse response) throws IOException {
         HttpEntity httpEntity = response.getEntity();
         if (httpEntity == null) {
             return "";
@@ -106,7 +137,18 @@ public class ApacheHttpClient implements HttpClient {
         return EntityUtils.toString(httpEntity);
     }
 
-    private int adaptStatusCode(HttpResponse response) {
+    /**
+     * Joins the values of a repeated header with ", ", as HTTP allows.
+     */
+    private static Map<String, String> adaptHeaders(HttpResponse response) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (Header header : response.getAllHeaders()) {
+            headers.merge(header.getName(), header.getValue(), (first, second) -> first + ", " + second);
+        }
+        return headers;
+    }
+
+    private static int adaptStatusCode(HttpResponse response) {
         return response.getStatusLine().getStatusCode();
     }
 
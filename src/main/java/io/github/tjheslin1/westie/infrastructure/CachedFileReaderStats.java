@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import io.github.tjheslin1.westie.ValueType;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * A snapshot of how well a {@link WestieCachedFileReader} has performed since it was created.
+ */
+public class CachedFileReaderStats extends ValueType {
+
+    public final long hitCount;
+    public final long loadCount;
+    public final long loadExceptionCount;
+    public final long staleReloadCount;
+    public final long evictionCount;
+    public final long uncachedLargeFileReadCount;
+    public final long totalLoadTimeNanos;
+    public final long cachedFileCount;
+    public final long cachedBytes;
+    public final long loadedBytes;
+
+    public CachedFileReaderStats(long hitCount, long loadCount, long loadExceptionCount, long staleReloadCount,
+                                 long evictionCount, long uncachedLargeFileReadCount, long totalLoadTimeNanos,
+                                 long cachedFileCount, long cachedBytes, long loadedBytes) {
+        this.hitCount = hitCount;
+        this.loadCount = loadCount;
+        this.loadExceptionCount = loadExceptionCount;
+        this.staleReloadCount = staleReloadCount;
+        this.evictionCount = evictionCount;
+        this.uncachedLargeFileReadCount = uncachedLargeFileReadCount;
+        this.totalLoadTimeNanos = totalLoadTimeNanos;
+        this.cachedFileCount = cachedFileCount;
+        this.cachedBytes = cachedBytes;
+        this.loadedBytes = loadedBytes;
+    }
+
+    /**
+     * @return The proportion of reads served from the cache, or 1.0 if nothing has been read.
+     */
+    public double hitRate() {
+        long requestCount = hitCount + loadCount + loadExceptionCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * @return The stats in a readable format, for printing or logging at the end of a run.
+     */
+    public String report() {
+        return format(Locale.ROOT, "Westie file cache: %.1f%% hit rate (%s hits, %s loads, %s failed loads, %s stale reloads)%n" +
+                        "  %s files cached in %s, %s loaded in total taking %sms%n" +
+                        "  %s evictions, %s files read without caching as they were above the streaming threshold",
+                hitRate() * 100, hitCount, loadCount, loadExceptionCount, staleReloadCount,
+                cachedFileCount, readableBytes(cachedBytes), readableBytes(loadedBytes),
+                TimeUnit.NANOSECONDS.toMillis(totalLoadTimeNanos),
+                evictionCount, uncachedLargeFileReadCount);
+    }
+
+    private static String readableBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The lines of a file, joined by {@link System#lineSeparator()}, in a single byte array along with the offset
+ * at which each line starts.
+ * <p>
+ * Files whose characters all fit in Latin-1, such as ASCII source files, are stored with one byte per character,
+ * any other file as UTF-8. Strings are only created when a line, or the whole content, is asked for.
+ * <p>
+ * The bytes and offsets are either held on the heap or, see {@link #offHeap()}, in direct buffers
+ * which the garbage collector never scans or copies.
+ */
+final class CompactFileContent {
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(UTF_8);
+    private static final int OBJECT_OVERHEAD_BYTES = 64;
+
+    private final ByteBuffer bytes;
+    private final IntBuffer lineStarts;
+    private final boolean latin1;
+
+    private CompactFileContent(ByteBuffer bytes, IntBuffer lineStarts, boolean latin1) {
+        this.bytes = bytes;
+        this.lineStarts = lineStarts;
+        this.latin1 = latin1;
+    }
+
+    static CompactFileContent fromLines(List<String> lines) {
+        boolean latin1 = lines.stream().allMatch(CompactFileContent::isLatin1);
+        byte[][] encodedLines = latin1 ? null : new byte[lines.size()][];
+
+        int length = Math.max(0, lines.size() - 1) * LINE_SEPARATOR.length;
+        for (int i = 0; i < lines.size(); i++) {
+            if (latin1) {
+                length += lines.get(i).length();
+            } else {
+                encodedLines[i] = lines.get(i).getBytes(UTF_8);
+                length += encodedLines[i].length;
+            }
+        }
+
+        byte[] bytes = new byte[length];
+        int[] lineStarts = new int[lines.size()];
+        int position = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                System.arraycopy(LINE_SEPARATOR, 0, bytes, position, LINE_SEPARATOR.length);
+                position += LINE_SEPARATOR.length;
+            }
+            lineStarts[i] = position;
+            if (latin1) {
+                String line = lines.get(i);
+                for (int c = 0; c < line.length(); c++) {
+                    bytes[position++] = (byte) line.charAt(c);
+                }
+            } else {
+                System.arraycopy(encodedLines[i], 0, bytes, position, encodedLines[i].length);
+                position += encodedLines[i].length;
+            }
+        }
+        return new CompactFileContent(ByteBuffer.wrap(bytes), IntBuffer.wrap(lineStarts), latin1);
+    }
+
+    /**
+     * @return A copy of this content held in direct buffers, outside of the heap.
+     */
+    CompactFileContent offHeap() {
+        ByteBuffer directBytes = ByteBuffer.allocateDirect(bytes.capacity());
+        directBytes.put(bytes.duplicate()).flip();
+        IntBuffer directLineStarts = ByteBuffer.allocateDirect(lineStarts.capacity() * Integer.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        directLineStarts.put(lineStarts.duplicate()).flip();
+        return new CompactFileContent(directBytes, directLineStarts, latin1);
+    }
+
+    String content() {
+        return decode(0, bytes.capacity());
+    }
+
+    String line(int index) {
+        int lineEnd = index + 1 < lineStarts.capacity()
+                ? lineStarts.get(index + 1) - LINE_SEPARATOR.length
+                : bytes.capacity();
+        return decode(lineStarts.get(index), lineEnd);
+    }
+
+    int lineCount() {
+        return lineStarts.capacity();
+    }
+
+    int weightInBytes() {
+        long weight = OBJECT_OVERHEAD_BYTES + (long) bytes.capacity() + 4L * lineStarts.capacity();
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    private String decode(int from, int to) {
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + from, to - from, latin1 ? ISO_8859_1 : UTF_8);
+        }
+        byte[] region = new byte[to - from];
+        ByteBuffer view = bytes.duplicate();
+        view.position(from);
+        view.get(region);
+        return new String(region, latin1 ? ISO_8859_1 : UTF_8);
+    }
+
+    private static boolean isLatin1(String line) {
+        for (int c = 0; c < line.length(); c++) {
+            if (line.charAt(c) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import java.lang.ref.SoftReference;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The content of a file, with its lines separated by {@link System#lineSeparator()}.
+ * <p>
+ * The content String, and each line, is decoded from the compact, byte encoded, content when it is first accessed
+ * and then shared by every rule which analyses it, rather than the content being re-joined from the lines.
+ * A {@link WestieCachedFileReader} caches the {@link FileContent} itself, so the decoded content is also shared
+ * by every analyser reading the same file. It is only softly held, so the garbage collector can reclaim it,
+ * leaving the compact content to be decoded again, rather than it adding to the weight of the cache.
+ * <p>
+ * Once constructed, it is safe to share between threads.
+ */
+public final class FileContent {
+
+    private final CompactFileContent compactContent;
+    private final List<String> lines = new Lines();
+
+    private volatile SoftReference<String> content;
+    private volatile SoftReference<String[]> decodedLines;
+
+    FileContent(CompactFileContent compactContent) {
+        this.compactContent = compactContent;
+    }
+
+    /**
+     * @param lines The lines of a file, without line terminators.
+     * @return The {@link FileContent} of the lines joined by {@link System#lineSeparator()}.
+     */
+    public static FileContent fromLines(List<String> lines) {
+        return new FileContent(CompactFileContent.fromLines(lines));
+    }
+
+    /**
+     * @return The whole content of the file, the same instance on every call unless reclaimed in between.
+     */
+    public String content() {
+        SoftReference<String> contentReference = content;
+        String decodedContent = contentReference == null ? null : contentReference.get();
+        if (decodedContent == null) {
+            decodedContent = compactContent.content();
+            content = new SoftReference<>(decodedContent);
+        }
+        return decodedContent;
+    }
+
+    /**
+     * @return The lines of the file, each decoded from the compact content when it is first accessed.
+     */
+    public List<String> lines() {
+        return lines;
+    }
+
+    public int lineCount() {
+        return compactContent.lineCount();
+    }
+
+    public boolean isEmpty() {
+        return compactContent.lineCount() == 0;
+    }
+
+    /**
+     * @return An estimate of the heap held by the compact content of the file, one byte per character
+     * for Latin-1 files, plus the line offsets.
+     */
+    public int weightInBytes() {
+        return compactContent.weightInBytes();
+    }
+
+    CompactFileContent compactContent() {
+        return compactContent;
+    }
+
+    private final class Lines extends AbstractList<String> implements RandomAccess {
+
+        @Override
+        public String get(int index) {
+            String[] lines = decodedLines();
+            String line = lines[index];
+            if (line == null) {
+                line = compactContent.line(index);
+                lines[index] = line;
+            }
+            return line;
+        }
+
+        private String[] decodedLines() {
+            SoftReference<String[]> linesReference = decodedLines;
+            String[] lines = linesReference == null ? null : linesReference.get();
+            if (lines == null) {
+                lines = new String[compactContent.lineCount()];
+                decodedLines = new SoftReference<>(lines);
+            }
+            return lines;
+        }
+
+        @Override
+        public int size() {
+            return compactContent.lineCount();
+        }
+    }
+}
@@ -17,16 +17,73 @@
  */
 package io.github.tjheslin1.westie.infrastructure;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_16BE;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * Abstraction over the java 8 {@link Files} api.
+ * <p>
+ * Files are decoded as UTF-8 unless a charset is configured for them, or they start with a byte order mark.
+ * Files which are pure ASCII are copied straight into Strings without going through a decoder.
+ * Malformed input fails the read, unless one of the configured fallback charsets can decode the file.
  */
 public class FileLinesReader {
 
+    private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] UTF_16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+    private static final byte[] UTF_16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+
+    private final List<Charset> fallbackCharsets = new ArrayList<>();
+    private final Map<PathMatcher, Charset> charsetsByGlob = new LinkedHashMap<>();
+
+    /**
+     * Sets the charsets to try, in order, when a file can't be decoded with its expected charset.
+     *
+     * @param fallbackCharsets The charsets to fall back to (e.g ISO-8859-1 for legacy fixtures).
+     * @return this {@link FileLinesReader} back with 'fallbackCharsets' set to the provided charsets.
+     */
+    public FileLinesReader withFallbackCharsets(Charset... fallbackCharsets) {
+        this.fallbackCharsets.clear();
+        this.fallbackCharsets.addAll(Arrays.asList(fallbackCharsets));
+        return this;
+    }
+
+    /**
+     * Decodes files matching the glob with the provided charset, instead of UTF-8.
+     * A glob without a '/', such as `*.properties`, matches the file name in any directory.
+     *
+     * @param glob    The glob pattern of the files encoded with 'charset' (e.g "*.properties").
+     * @param charset The charset of the matching files.
+     * @return this {@link FileLinesReader} back with 'charset' set for the files matching 'glob'.
+     */
+    public FileLinesReader withCharset(String glob, Charset charset) {
+        this.charsetsByGlob.put(FileSystems.getDefault().getPathMatcher("glob:" + glob), charset);
+        return this;
+    }
+
     /**
      *
      * @param filePath The path to the file to read.
@@ -34,6 +91,169 @@ public class FileLinesReader {
      * @throws IOException If an exception occurs whilst reading the file.
      */
     public List<String> readAllLines(Path filePath) throws IOException {
-        return Files.readAllLines(filePath);
+        byte[] bytes = Files.readAllBytes(filePath);
+
+        Charset bomCharset = byteOrderMarkCharset(bytes);
+        if (bomCharset != null) {
+            int bomLength = bomCharset == UTF_8 ? UTF_8_BOM.length : UTF_16BE_BOM.length;
+            return splitLines(decode(bytes, bomLength, bomCharset));
+        }
+
+        Charset charset = charsetFor(filePath);
+        if (isAsciiCompatible(charset) && isAscii(bytes)) {
+            return splitLines(new String(bytes, ISO_8859_1));
+        }
+
+        try {
+            return splitLines(decode(bytes, 0, charset));
+        } catch (CharacterCodingException e) {
+            for (Charset fallbackCharset : fallbackCharsets) {
+                try {
+                    return splitLines(decode(bytes, 0, fallbackCharset));
+                } catch (CharacterCodingException fallbackFailure) {
+                    e.addSuppressed(fallbackFailure);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Lazily reads the lines of a file through a buffered reader, so only the current line is held in memory.
+     * The returned {@link Stream} must be closed to close the file.
+     * <p>
+     * The file is decoded the same way as {@link #readAllLines(Path)}: by its byte order mark if it starts with one,
+     * otherwise with the charset configured for it, or UTF-8. Fallback charsets are not tried,
+     * as part of the file will already have been consumed by the time malformed input is found.
+     *
+     * @param filePath The path to the file to read.
+     * @return The lines of the file as a Stream of Strings.
+     * @throws IOException If an exception occurs whilst opening the file.
+     */
+    public Stream<String> lines(Path filePath) throws IOException {
+        BufferedInputStream inputStream = new BufferedInputStream(Files.newInputStream(filePath));
+        try {
+            Charset charset = skipByteOrderMark(inputStream);
+            if (charset == null) {
+                charset = charsetFor(filePath);
+            }
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, decoder));
+            return reader.lines().onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Peeks at the start of the stream, consuming a byte order mark if there is one.
+     *
+     * @return The charset indicated by the byte order mark, or null if the stream doesn't start with one.
+     */
+    private static Charset skipByteOrderMark(BufferedInputStream inputStream) throws IOException {
+        byte[] start = new byte[UTF_8_BOM.length];
+        inputStream.mark(start.length);
+        int read = 0;
+        int count;
+        while (read < start.length && (count = inputStream.read(start, read, start.length - read)) > 0) {
+            read += count;
+        }
+        inputStream.reset();
+
+        Charset bomCharset = byteOrderMarkCharset(Arrays.copyOf(start, read));
+        if (bomCharset != null) {
+            long bomLength = bomCharset == UTF_8 ? UTF_8_BOM.length : UTF_16BE_BOM.length;
+            inputStream.skip(bomLength);
+        }
+        return bomCharset;
+    }
+
+    private Charset charsetFor(Path filePath) {
+        Path fileName = filePath.getFileName();
+        for (Map.Entry<PathMatcher, Charset> charsetByGlob : charsetsByGlob.entrySet()) {
+            PathMatcher glob = charsetByGlob.getKey();
+            if (glob.matches(filePath) || (fileName != null && glob.matches(fileName))) {
+                return charsetByGlob.getValue();
+            }
+        }
+        return UTF_8;
+    }
+
+    private static Charset byteOrderMarkCharset(byte[] bytes) {
+        if (startsWith(bytes, UTF_8_BOM)) {
+            return UTF_8;
+        }
+        if (startsWith(bytes, UTF_16BE_BOM)) {
+            return UTF_16BE;
+        }
+        if (startsWith(bytes, UTF_16LE_BOM)) {
+            return UTF_16LE;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        return charset == UTF_8 || charset == ISO_8859_1
+                || Arrays.equals("ascii".getBytes(charset), "ascii".getBytes(ISO_8859_1));
+    }
+
+    private static CharSequence decode(byte[] bytes, int offset, Charset charset) throws CharacterCodingException {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                .decode(ByteBuffer.wrap(bytes, offset, bytes.length - offset));
+    }
+
+    /**
+     * Splits on '\n', '\r' or "\r\n", as {@link java.io.BufferedReader#readLine()} does.
+     */
+    private static List<String> splitLines(CharSequence content) {
+        List<String> lines = new ArrayList<>();
+        int lineStart = 0;
+        int length = content.length();
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && content.charAt(lineEnd) != '\n' && content.charAt(lineEnd) != '\r') {
+                lineEnd++;
+            }
+            lines.add(content.subSequence(lineStart, lineEnd).toString());
+
+            if (lineEnd + 1 < length && content.charAt(lineEnd) == '\r' && content.charAt(lineEnd + 1) == '\n') {
+                lineStart = lineEnd + 2;
+            } else {
+                lineStart = lineEnd + 1;
+            }
+        }
+        return lines;
     }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Asks the local git repository which files have changed, using the `git` command line.
+ * <p>
+ * Nothing is fetched from a remote, the base ref must already be available locally.
+ */
+public class GitChangedFiles {
+
+    private final Path repositoryDirectory;
+
+    /**
+     * @param repositoryDirectory A directory within the git working tree.
+     */
+    public GitChangedFiles(Path repositoryDirectory) {
+        this.repositoryDirectory = repositoryDirectory;
+    }
+
+    /**
+     * Files changed in the working tree relative to 'baseRef', including staged and unstaged changes,
+     * plus untracked files which are not ignored. Deleted files are left out.
+     *
+     * @param baseRef The commit, branch or tag to compare the working tree against (e.g "origin/master").
+     * @return The absolute paths of the changed files, sorted.
+     * @throws IOException If git is unavailable or fails, for example because 'baseRef' doesn't exist.
+     */
+    public SortedSet<Path> changedSince(String baseRef) throws IOException {
+        Path topLevel = repositoryDirectory.toAbsolutePath()
+                .resolve(git("rev-parse", "--show-toplevel").trim())
+                .normalize();
+
+        SortedSet<Path> changedFiles = new TreeSet<>();
+        for (String changedFile : nulSeparated(git("diff", "--name-only", "--no-renames", "--diff-filter=d", "-z", baseRef, "--"))) {
+            changedFiles.add(topLevel.resolve(changedFile).normalize());
+        }
+        for (String untrackedFile : nulSeparated(git("ls-files", "--others", "--exclude-standard", "--full-name", "-z"))) {
+            changedFiles.add(topLevel.resolve(untrackedFile).normalize());
+        }
+        return changedFiles;
+    }
+
+    private String git(String... arguments) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+
+        Process process = new ProcessBuilder(command)
+                .directory(repositoryDirectory.toFile())
+                .start();
+        process.getOutputStream().close();
+        CompletableFuture<String> error = CompletableFuture.supplyAsync(() -> readUnchecked(process.getErrorStream()));
+        String output = read(process.getInputStream());
+
+        try {
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException(format("'%s' failed with exit code %s:%n%s", String.join(" ", command), exitCode, error.join()));
+            }
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException(format("Interrupted whilst running '%s'", String.join(" ", command)), e);
+        }
+        return output;
+    }
+
+    private static List<String> nulSeparated(String output) {
+        List<String> entries = new ArrayList<>();
+        for (String entry : output.split("\0")) {
+            if (!entry.isEmpty()) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return new String(output.toByteArray(), UTF_8);
+    }
+
+    private static String readUnchecked(InputStream inputStream) {
+        try {
+            return read(inputStream);
+        } catch (IOException e) {
+            return e.getMessage();
+        }
+    }
+}
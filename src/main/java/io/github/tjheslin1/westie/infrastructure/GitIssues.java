@@ -24,10 +24,17 @@ import io.github.tjheslin1.westie.HttpClient;
 import io.github.tjheslin1.westie.http.Request;
 import io.github.tjheslin1.westie.http.RequestBuilder;
 import io.github.tjheslin1.westie.http.Response;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,12 +44,23 @@ import static java.lang.String.format;
 /**
  * Retrieves the state of a given Git issue.
  * Checking the issue is in the open state.
+ * <p>
+ * By default each issue is requested on its own. In bulk mode, see {@link #listingAllIssues()},
+ * the states of all of the repository's issues are listed a page at a time instead.
+ * States can be kept between runs in an {@link IssueStatusStore}.
  */
 public class GitIssues {
 
     private static final String GITHUB_API_HOSTNAME = "https://api.github.com";
     private static final String GIT_ISSUE_URL_FORMAT = "/repos/%s/%s/issues/%s";
+    private static final String GIT_ISSUES_LIST_URL_FORMAT = "/repos/%s/%s/issues?state=all&per_page=%s";
+    private static final int ISSUES_PER_PAGE = 100;
+    private static final String SNAPSHOT_REPOSITORY = "repository";
+    private static final String SNAPSHOT_LISTED_AT = "listedAt";
+    private static final String SNAPSHOT_STATES = "states";
     private static final String OPEN = "open";
+    private static final Pattern EXTRACT_NUMBER = Pattern.compile(EXTRACT_NUMBER_REGEX);
+    private static final Pattern NEXT_PAGE_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"next\"");
     private static final HttpClient HTTP_CLIENT = new ApacheHttpClient(Duration.ofSeconds(10));
 
     private final HttpClient httpClient;
@@ -50,6 +68,10 @@ public class GitIssues {
     private final String repository;
     private final String githubApiHostname;
 
+    private boolean listingAllIssues;
+    private Path snapshotFile;
+    private IssueStatusStore statusStore = IssueStatusStore.none();
+
     public GitIssues(String user, String repository) {
         this.httpClient = HTTP_CLIENT;
         this.user = user;
@@ -71,6 +93,78 @@ public class GitIssues {
         this.githubApiHostname = githubApiHostname;
     }
 
+    /**
+     * Fills the state of every issue from a listing of all of the repository's issues, open and closed,
+     * when {@link #prefetchStates(Collection)} is called. A repository with 2,000 issues is listed in 20 requests.
+     *
+     * @return this {@link GitIssues} back in bulk mode.
+     */
+    public GitIssues listingAllIssues() {
+        this.listingAllIssues = true;
+        return this;
+    }
+
+    /**
+     * Persists the listed issue states to 'snapshotFile', for example under the build directory.
+     * On the next listing, only the issues updated since the snapshot was taken are listed.
+     *
+     * @param snapshotFile The file in which to persist the issue states between runs.
+     * @return this {@link GitIssues} back in bulk mode, with the snapshot file set.
+     */
+    public GitIssues snapshottingStatesIn(Path snapshotFile) {
+        this.listingAllIssues = true;
+        this.snapshotFile = snapshotFile;
+        return this;
+    }
+
+    /**
+     * Uses the states stored in 'statusStore' while they are fresh, and revalidates them with conditional requests
+     * once they are not. Requests answered with 304 (Not Modified) don't count against github's rate limit.
+     * States requested one issue at a time by this {@link GitIssues} are added to the store, as are the states
+     * of the referenced issues in a bulk mode listing. The listing's snapshot, see {@link #snapshottingStatesIn(Path)},
+     * is kept separately as it holds every issue of the repository, to list only those updated since.
+     *
+     * @param statusStore The states persisted between runs, see {@link IssueStatusStore#load}.
+     * @return this {@link GitIssues} back with 'statusStore' set.
+     */
+    public GitIssues storingStatesIn(IssueStatusStore statusStore) {
+        this.statusStore = statusStore;
+        return this;
+    }
+
+    /**
+     * In bulk mode, lists the repository's issues, unless the states of every provided issue are already known,
+     * or fresh in the {@link IssueStatusStore}. The listed states of the provided issues are added to the store.
+     * Otherwise does nothing, leaving each issue to be requested on its own by {@link #isGitIssueOpen(String)}.
+     *
+     * @param issues The git repo issues which are about to be checked.
+     * @throws IOException if an I/O exception occurs whilst communicating with github, or accessing the snapshot.
+     */
+    public void prefetchStates(Collection<String> issues) throws IOException {
+        if (!listingAllIssues || issues.stream().map(this::extractNumber).allMatch(issueNumber ->
+                issueStatusCache.getIfPresent(issueNumber) != null || statusStore.freshStatus(issueUrl(issueNumber)).isPresent())) {
+            return;
+        }
+
+        JSONObject snapshot = loadSnapshot();
+        JSONObject states = snapshot.getJSONObject(SNAPSHOT_STATES);
+        Instant listedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        listIssueStates(snapshot.optString(SNAPSHOT_LISTED_AT, null), states);
+
+        for (String issueNumber : states.keySet()) {
+            issueStatusCache.put(issueNumber, states.getString(issueNumber));
+        }
+        for (String issue : issues) {
+            String issueNumber = extractNumber(issue);
+            if (states.has(issueNumber)) {
+                statusStore.store(issueUrl(issueNumber), states.getString(issueNumber));
+            }
+        }
+        if (snapshotFile != null) {
+            JsonFiles.write(snapshotFile, snapshot.put(SNAPSHOT_LISTED_AT, listedAt.toString()));
+        }
+    }
+
     /**
      * @param issue The git repo issue to query the github API to determine its state.
      * @return true if the state of the issue is 'open'. false otherwise.
@@ -80,9 +174,35 @@ public class GitIssues {
         return issueState.equals(OPEN);
     }
 
+    /**
+     * Requests the issue's state with {@link HttpClient#executeAsync(Request)}, unless it is already known,
+     * so that the calling thread doesn't wait for github.
+     *
+     * @param issue The git repo issue to query the github API to determine its state.
+     * @return A future completed with true if the state of the issue is 'open'. false otherwise.
+     */
+    public CompletableFuture<Boolean> isGitIssueOpenAsync(String issue) {
+        String issueNumber = extractNumber(issue);
+        String knownState = issueStatusCache.getIfPresent(issueNumber);
+        if (knownState != null) {
+            return CompletableFuture.completedFuture(knownState.equals(OPEN));
+        }
+        String issueUrl = issueUrl(issueNumber);
+        Optional<String> freshStatus = statusStore.freshStatus(issueUrl);
+        if (freshStatus.isPresent()) {
+            issueStatusCache.put(issueNumber, freshStatus.get());
+            return CompletableFuture.completedFuture(freshStatus.get().equals(OPEN));
+        }
+
+        return httpClient.executeAsync(gitIssueRequest(issueUrl)).thenApply(gitIssue -> {
+            String state = status(issueUrl, gitIssue);
+            issueStatusCache.put(issueNumber, state);
+            return state.equals(OPEN);
+        });
+    }
+
     private String extractNumber(String issue) {
-        Pattern pattern = Pattern.compile(EXTRACT_NUMBER_REGEX);
-        Matcher matcher = pattern.matcher(issue);
+        Matcher matcher = EXTRACT_NUMBER.matcher(issue);
         if (matcher.find()) {
             return matcher.group();
         } else {
@@ -90,6 +210,55 @@ public class GitIssues {
         }
     }
 
+    /**
+     * @return The hostname of the github API the issues are retrieved from.
+     */
+    public String githubApiHostname() {
+        return githubApiHostname;
+    }
+
+    /**
+     * Lists the issues a page at a time, following the 'next' link of each page's Link header until there is none.
+     */
+    private void listIssueStates(String since, JSONObject states) throws IOException {
+        String url = format(githubApiHostname + GIT_ISSUES_LIST_URL_FORMAT, user, repository, ISSUES_PER_PAGE);
+        Optional<String> pageUrl = Optional.of(since == null ? url : url + "&since=" + since);
+        while (pageUrl.isPresent()) {
+            Response response = httpClient.execute(new RequestBuilder().get()
+                    .url(pageUrl.get())
+                    .build());
+            if (!response.isSuccessful()) {
+                throw new IOException(format("Problem listing issues:%n%s", response));
+            }
+
+            JSONArray issues = new JSONArray(response.body);
+            for (int i = 0; i < issues.length(); i++) {
+                JSONObject issue = issues.getJSONObject(i);
+                states.put(String.valueOf(issue.getLong("number")), status(issue));
+            }
+            pageUrl = response.header("Link").flatMap(this::nextPageUrl);
+        }
+    }
+
+    private Optional<String> nextPageUrl(String linkHeader) {
+        Matcher matcher = NEXT_PAGE_LINK.matcher(linkHeader);
+        return matcher.find() ? Optional.of(matcher.group(1)) : Optional.empty();
+    }
+
+    /**
+     * Loads the snapshot, starting afresh if there is none, it can't be parsed or it is of another repository.
+     */
+    private JSONObject loadSnapshot() throws IOException {
+        String snapshotRepository = user + "/" + repository;
+        Optional<JSONObject> snapshot = snapshotFile == null ? Optional.empty() : JsonFiles.read(snapshotFile);
+        return snapshot
+                .filter(previous -> snapshotRepository.equals(previous.optString(SNAPSHOT_REPOSITORY))
+                        && previous.optJSONObject(SNAPSHOT_STATES) != null && previous.has(SNAPSHOT_LISTED_AT))
+                .orElseGet(() -> new JSONObject()
+                        .put(SNAPSHOT_REPOSITORY, snapshotRepository)
+                        .put(SNAPSHOT_STATES, new JSONObject()));
+    }
+
     private final LoadingCache<String, String> issueStatusCache = CacheBuilder.<String, String>newBuilder()
             .build(new CacheLoader<String, String>() {
                 @Override
@@ -99,15 +268,33 @@ public class GitIssues {
             });
 
     private String gitIssueStatus(String issueNumber) throws IOException {
-        Request request = new RequestBuilder().get()
-                .url(format(githubApiHostname + GIT_ISSUE_URL_FORMAT, user, repository, issueNumber))
-                .build();
-        Response response = httpClient.execute(request);
+        String issueUrl = issueUrl(issueNumber);
+        Optional<String> freshStatus = statusStore.freshStatus(issueUrl);
+        if (freshStatus.isPresent()) {
+            return freshStatus.get();
+        }
+        return status(issueUrl, httpClient.execute(gitIssueRequest(issueUrl)));
+    }
+
+    private String issueUrl(String issueNumber) {
+        return format(githubApiHostname + GIT_ISSUE_URL_FORMAT, user, repository, issueNumber);
+    }
+
+    private Request gitIssueRequest(String issueUrl) {
+        return statusStore.conditionally(issueUrl, new RequestBuilder().get().url(issueUrl)).build();
+    }
+
+    private String status(String issueUrl, Response response) {
+        if (response.isNotModified()) {
+            return statusStore.revalidated(issueUrl, response);
+        }
         if (!response.isSuccessful()) {
             throw new IllegalStateException(format("Problem fetching issue:%n%s", response));
         }
         JSONObject jsonObject = new JSONObject(response.body);
-        return status(jsonObject);
+        String status = status(jsonObject);
+        statusStore.store(issueUrl, status, response);
+        return status;
     }
 
     private String status(JSONObject jsonObject) {
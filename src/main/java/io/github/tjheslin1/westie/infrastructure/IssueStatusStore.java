@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import io.github.tjheslin1.westie.http.RequestBuilder;
+import io.github.tjheslin1.westie.http.Response;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.String.format;
+
+/**
+ * Issue statuses persisted between runs, so that {@link JiraIssues} and {@link GitIssues}
+ * don't request every issue again on every build.
+ * <p>
+ * A status younger than the 'timeToLive' is used without a request. An older status is revalidated with a
+ * conditional request, sending the ETag and Last-Modified validators it was stored with. A 304 (Not Modified) response
+ * keeps the stored status for another 'timeToLive', and doesn't count against github's rate limit.
+ * <p>
+ * Statuses are only written to the file by {@link #save()}, for example once all analysis tests have run.
+ */
+public class IssueStatusStore {
+
+    private static final String STATUS = "status";
+    private static final String STORED_AT = "storedAt";
+    private static final String ETAG = "eTag";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final IssueStatusStore NONE = new IssueStatusStore(null, Duration.ZERO, Clock.systemUTC(), new JSONObject());
+
+    private final Path storeFile;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final Map<String, JSONObject> statuses = new ConcurrentHashMap<>();
+
+    private IssueStatusStore(Path storeFile, Duration timeToLive, Clock clock, JSONObject storedStatuses) {
+        this.storeFile = storeFile;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        for (String key : storedStatuses.keySet()) {
+            statuses.put(key, storedStatuses.getJSONObject(key));
+        }
+    }
+
+    /**
+     * Loads the store, starting afresh if it doesn't exist or can't be parsed.
+     *
+     * @param storeFile  The file in which to persist the statuses between runs, for example under the build directory.
+     * @param timeToLive How long a status is used for before it is revalidated (e.g 1 day).
+     * @return The {@link IssueStatusStore} of the statuses in 'storeFile'.
+     * @throws IOException if an I/O error occurs reading 'storeFile'.
+     */
+    public static IssueStatusStore load(Path storeFile, Duration timeToLive) throws IOException {
+        return load(storeFile, timeToLive, Clock.systemUTC());
+    }
+
+    static IssueStatusStore load(Path storeFile, Duration timeToLive, Clock clock) throws IOException {
+        JSONObject storedStatuses = JsonFiles.read(storeFile).orElseGet(JSONObject::new);
+        return new IssueStatusStore(storeFile, timeToLive, clock, storedStatuses);
+    }
+
+    /**
+     * @return A store which stores nothing, so every status is requested.
+     */
+    static IssueStatusStore none() {
+        return NONE;
+    }
+
+    /**
+     * Writes the statuses to the store file.
+     *
+     * @throws IOException if an I/O error occurs writing the store file.
+     */
+    public void save() throws IOException {
+        if (storeFile == null) {
+            return;
+        }
+        JsonFiles.write(storeFile, new JSONObject(statuses));
+    }
+
+    /**
+     * @return The stored status, if it is younger than the 'timeToLive'.
+     */
+    Optional<String> freshStatus(String key) {
+        JSONObject stored = statuses.get(key);
+        if (stored == null || clock.millis() - stored.getLong(STORED_AT) >= timeToLive.toMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(stored.getString(STATUS));
+    }
+
+    /**
+     * Adds the validators of the stored status to the request, so the issue tracker can respond 304 (Not Modified).
+     */
+    RequestBuilder conditionally(String key, RequestBuilder request) {
+        JSONObject stored = statuses.get(key);
+        if (stored != null) {
+            if (stored.has(ETAG)) {
+                request.withHeader("If-None-Match", stored.getString(ETAG));
+            }
+            if (stored.has(LAST_MODIFIED)) {
+                request.withHeader("If-Modified-Since", stored.getString(LAST_MODIFIED));
+            }
+        }
+        return request;
+    }
+
+    /**
+     * @return The stored status, kept for another 'timeToLive' as the issue tracker responded 304 (Not Modified).
+     */
+    String revalidated(String key, Response notModified) {
+        JSONObject stored = statuses.get(key);
+        if (stored == null) {
+            throw new IllegalStateException(format("Received a 304 response without a stored status for '%s'", key));
+        }
+        store(key, stored.getString(STATUS), notModified);
+        return stored.getString(STATUS);
+    }
+
+    /**
+     * Stores the status with the validators of the response it was read from.
+     */
+    void store(String key, String status, Response response) {
+        store(key, status, response.header("ETag"), response.header("Last-Modified"), statuses.get(key));
+    }
+
+    /**
+     * Stores a status read from a listing or search of many issues, whose validators don't apply to the single issue.
+     * Any validators stored for the single issue are dropped, so that a 304 (Not Modified) response to them
+     * can't bring back the status this one replaces.
+     */
+    void store(String key, String status) {
+        store(key, status, Optional.empty(), Optional.empty(), null);
+    }
+
+    private void store(String key, String status, Optional<String> eTag, Optional<String> lastModified, JSONObject previous) {
+        if (this == NONE) {
+            return;
+        }
+        JSONObject stored = new JSONObject()
+                .put(STATUS, status)
+                .put(STORED_AT, clock.millis());
+        putValidator(stored, ETAG, eTag, previous);
+        putValidator(stored, LAST_MODIFIED, lastModified, previous);
+        statuses.put(key, stored);
+    }
+
+    /**
+     * A response may omit a validator, in which case the previous one still applies.
+     */
+    private static void putValidator(JSONObject stored, String validator, Optional<String> value, JSONObject previous) {
+        if (value.isPresent()) {
+            stored.put(validator, value.get());
+        } else if (previous != null && previous.has(validator)) {
+            stored.put(validator, previous.getString(validator));
+        }
+    }
+}
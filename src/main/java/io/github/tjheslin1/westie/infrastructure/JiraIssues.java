@@ -24,13 +24,21 @@ import io.github.tjheslin1.westie.HttpClient;
 import io.github.tjheslin1.westie.http.Request;
 import io.github.tjheslin1.westie.http.RequestBuilder;
 import io.github.tjheslin1.westie.http.Response;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static java.lang.String.format;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Retrieves the status information of a given Jira issue.
@@ -39,10 +47,16 @@ import static java.lang.String.format;
  * - Uses caching so that multiple references to the same Jira
  * issue does result in retrieving the information from your Jira
  * site more than once.
+ * <p>
+ * The statuses of many issues can be retrieved up front, in batches, with {@link #prefetchStatuses(Collection)}.
+ * Statuses can be kept between runs in an {@link IssueStatusStore}.
  */
 public class JiraIssues {
 
-    private static final String JIRA_TICKET_QUERY_FORMAT = "/rest/api/2/issue/%s?&os_username=%s&os_password=%s";
+    private static final String JIRA_TICKET_PATH_FORMAT = "/rest/api/2/issue/%s";
+    private static final String JIRA_TICKET_QUERY_FORMAT = JIRA_TICKET_PATH_FORMAT + "?&os_username=%s&os_password=%s";
+    private static final String JIRA_SEARCH_QUERY_FORMAT = "/rest/api/2/search?jql=%s&validateQuery=warn&fields=status&startAt=%s&maxResults=%s&os_username=%s&os_password=%s";
+    private static final int SEARCH_BATCH_SIZE = 100;
     private static final HttpClient HTTP_CLIENT = new ApacheHttpClient(Duration.ofSeconds(10));
 
     private final HttpClient httpClient;
@@ -51,6 +65,8 @@ public class JiraIssues {
     private final String jiraHostname;
     private final List<String> allowedStatuses;
 
+    private IssueStatusStore statusStore = IssueStatusStore.none();
+
     /**
      * @param jiraHostname     Your jira's hostname (e.g. "tasktracker.mycompany.com").
      * @param teamCityUsername Your username to access your Jira.
@@ -85,10 +101,82 @@ public class JiraIssues {
      * @return true if the Jira issue is in one of the 'allowedStatuses'.
      */
     public boolean isJiraIssueInAllowedStatus(String issueNumber) {
-        String issueStatus = issueStatusCache.getUnchecked(issueNumber);
+        return isAllowed(issueStatusCache.getUnchecked(issueNumber));
+    }
+
+    /**
+     * Requests the issue's status with {@link HttpClient#executeAsync(Request)}, unless it is already known,
+     * so that the calling thread doesn't wait for Jira.
+     *
+     * @param issueNumber The issue number of the Jira issue. (e.g TOM-100)
+     * @return A future completed with true if the Jira issue is in one of the 'allowedStatuses'.
+     */
+    public CompletableFuture<Boolean> isJiraIssueInAllowedStatusAsync(String issueNumber) {
+        String knownStatus = issueStatusCache.getIfPresent(issueNumber);
+        if (knownStatus != null) {
+            return CompletableFuture.completedFuture(isAllowed(knownStatus));
+        }
+        String storeKey = storeKey(issueNumber);
+        Optional<String> freshStatus = statusStore.freshStatus(storeKey);
+        if (freshStatus.isPresent()) {
+            issueStatusCache.put(issueNumber, freshStatus.get());
+            return CompletableFuture.completedFuture(isAllowed(freshStatus.get()));
+        }
+
+        return httpClient.executeAsync(jiraIssueRequest(issueNumber, storeKey)).thenApply(jiraIssue -> {
+            String status = status(storeKey, jiraIssue);
+            issueStatusCache.put(issueNumber, status);
+            return isAllowed(status);
+        });
+    }
+
+    private boolean isAllowed(String issueStatus) {
         return allowedStatuses.stream().anyMatch(allowedStatus -> allowedStatus.equalsIgnoreCase(issueStatus));
     }
 
+    /**
+     * Uses the statuses stored in 'statusStore' while they are fresh, and revalidates them with conditional requests
+     * once they are not. Statuses retrieved by this {@link JiraIssues} are added to the store.
+     *
+     * @param statusStore The statuses persisted between runs, see {@link IssueStatusStore#load}.
+     * @return this {@link JiraIssues} back with 'statusStore' set.
+     */
+    public JiraIssues storingStatusesIn(IssueStatusStore statusStore) {
+        this.statusStore = statusStore;
+        return this;
+    }
+
+    /**
+     * Retrieves the statuses of the issues which haven't already been retrieved, through Jira's search api,
+     * a page of up to 100 issues at a time, rather than one request per issue.
+     * <p>
+     * The search only warns about issues which don't exist, or can't be seen, rather than rejecting the whole batch.
+     * Those issues are missing from the results, so only they are left to be retrieved one at a time
+     * by {@link #isJiraIssueInAllowedStatus(String)}.
+     *
+     * @param issueNumbers The issue numbers of the Jira issues (e.g [TOM-100, TOM-101]).
+     * @throws IOException if an I/O exception occurs whilst communicating with Jira, or Jira rejects the search.
+     */
+    public void prefetchStatuses(Collection<String> issueNumbers) throws IOException {
+        List<String> unknownIssues = issueNumbers.stream()
+                .distinct()
+                .filter(issueNumber -> issueStatusCache.getIfPresent(issueNumber) == null)
+                .filter(issueNumber -> !statusStore.freshStatus(storeKey(issueNumber)).isPresent())
+                .collect(toList());
+
+        for (int batchStart = 0; batchStart < unknownIssues.size(); batchStart += SEARCH_BATCH_SIZE) {
+            List<String> batch = unknownIssues.subList(batchStart, Math.min(batchStart + SEARCH_BATCH_SIZE, unknownIssues.size()));
+            searchStatuses(batch);
+        }
+    }
+
+    /**
+     * @return The provided hostname of your Jira.
+     */
+    public String jiraHostname() {
+        return jiraHostname;
+    }
+
     /**
      * @return The list of provided accepted status' for a Jira story to be in and be referenced in a to-do.
      */
@@ -96,6 +184,45 @@ public class JiraIssues {
         return allowedStatuses;
     }
 
+    private void searchStatuses(List<String> issueNumbers) throws IOException {
+        String jql = issueNumbers.stream()
+                .map(issueNumber -> "\"" + issueNumber + "\"")
+                .collect(joining(",", "key in (", ")"));
+
+        int startAt = 0;
+        int total;
+        do {
+            Response response = httpClient.execute(new RequestBuilder().get()
+                    .url(format(jiraHostname + JIRA_SEARCH_QUERY_FORMAT,
+                            urlEncode(jql), startAt, issueNumbers.size(), teamCityUsername, teamCityPassword))
+                    .build());
+            if (!response.isSuccessful()) {
+                throw new IOException(format("Problem searching issues:%n%s", response));
+            }
+
+            JSONObject searchResults = new JSONObject(response.body);
+            JSONArray issues = searchResults.getJSONArray("issues");
+            for (int i = 0; i < issues.length(); i++) {
+                JSONObject issue = issues.getJSONObject(i);
+                issueStatusCache.put(issue.getString("key"), status(issue));
+                statusStore.store(storeKey(issue.getString("key")), status(issue));
+            }
+            total = searchResults.getInt("total");
+            startAt += issues.length();
+            if (issues.length() == 0) {
+                return;
+            }
+        } while (startAt < total);
+    }
+
+    private static String urlEncode(String value) throws IOException {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IOException(format("Unable to encode '%s'", value), e);
+        }
+    }
+
     private final LoadingCache<String, String> issueStatusCache = CacheBuilder.<String, String>newBuilder()
             .build(new CacheLoader<String, String>() {
                 @Override
@@ -105,20 +232,40 @@ public class JiraIssues {
             });
 
     private String jiraIssueStatus(String issueNumber) throws IOException {
-        Response response = jiraIssue(issueNumber);
+        String storeKey = storeKey(issueNumber);
+        Optional<String> freshStatus = statusStore.freshStatus(storeKey);
+        if (freshStatus.isPresent()) {
+            return freshStatus.get();
+        }
+
+        return status(storeKey, httpClient.execute(jiraIssueRequest(issueNumber, storeKey)));
+    }
+
+    private Request jiraIssueRequest(String issueNumber, String storeKey) {
+        return statusStore.conditionally(storeKey, new RequestBuilder().get()
+                .url(format(jiraHostname + JIRA_TICKET_QUERY_FORMAT,
+                        issueNumber, teamCityUsername, teamCityPassword)))
+                .build();
+    }
+
+    private String status(String storeKey, Response response) {
+        if (response.isNotModified()) {
+            return statusStore.revalidated(storeKey, response);
+        }
         if (!response.isSuccessful()) {
             throw new IllegalStateException(format("Problem fetching issue:%n%s", response));
         }
         JSONObject jsonObject = new JSONObject(response.body);
-        return status(jsonObject);
+        String status = status(jsonObject);
+        statusStore.store(storeKey, status, response);
+        return status;
     }
 
-    private Response jiraIssue(String issueNumber) throws IOException {
-        Request request = new RequestBuilder().get()
-                .url(format(jiraHostname + JIRA_TICKET_QUERY_FORMAT,
-                        issueNumber, teamCityUsername, teamCityPassword))
-                .build();
-        return httpClient.execute(request);
+    /**
+     * The issue's url, without the credentials.
+     */
+    private String storeKey(String issueNumber) {
+        return format(jiraHostname + JIRA_TICKET_PATH_FORMAT, issueNumber);
     }
 
     private String status(JSONObject jsonObject) {
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Reads and writes the JSON files Westie keeps between runs, such as the incremental analysis cache
+ * and the {@link IssueStatusStore}.
+ */
+public final class JsonFiles {
+
+    private JsonFiles() {
+    }
+
+    /**
+     * @param file The JSON file to read.
+     * @return The JSON object in 'file', or empty if there is no such file or it can't be parsed,
+     * so that the caller starts afresh.
+     * @throws IOException if an I/O error occurs reading 'file'.
+     */
+    public static Optional<JSONObject> read(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new JSONObject(new String(Files.readAllBytes(file), UTF_8)));
+        } catch (JSONException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes to a temporary file alongside 'file' and then moves it into place, so a run which is stopped part way
+     * through writing never leaves a truncated file behind. Falls back to a plain move where an atomic one isn't supported.
+     *
+     * @param file       The JSON file to write, whose directories are created if need be.
+     * @param jsonObject The JSON object to write.
+     * @throws IOException if an I/O error occurs writing 'file'.
+     */
+    public static void write(Path file, JSONObject jsonObject) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        Files.write(tempFile, jsonObject.toString().getBytes(UTF_8));
+        try {
+            Files.move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tempFile, file, REPLACE_EXISTING);
+        }
+    }
+}
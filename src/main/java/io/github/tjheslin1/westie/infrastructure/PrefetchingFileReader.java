@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import com.google.common.base.Throwables;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+
+/**
+ * Reads the next files of a walk on background I/O threads while the current file is analysed,
+ * so that waiting on the disk, or a network mounted workspace, overlaps with running the rules.
+ * <p>
+ * Files are read with the provided {@link WestieFileReader}, which may itself cache them.
+ * At most 'maxInFlightBytes' of files are read ahead at once; files which would exceed this are read when needed.
+ * Call {@link #close()} to stop the I/O threads once finished with.
+ */
+public class PrefetchingFileReader implements WestieFileReader, AutoCloseable {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final WestieFileReader fileReader;
+    private final int readAhead;
+    private final long maxInFlightBytes;
+    private final ExecutorService ioExecutor;
+    private final Map<Path, PrefetchedFile> prefetchedFiles = new ConcurrentHashMap<>();
+    private final AtomicLong inFlightBytes = new AtomicLong();
+
+    /**
+     * @param fileReader       Reads the files, on the I/O threads when prefetching.
+     * @param readAhead        The number of files ahead of the one being analysed to read.
+     * @param maxInFlightBytes The maximum total size of files read ahead but not yet analysed.
+     * @param ioThreads        The number of threads on which to read files.
+     */
+    public PrefetchingFileReader(WestieFileReader fileReader, int readAhead, long maxInFlightBytes, int ioThreads) {
+        if (readAhead < 1 || ioThreads < 1) {
+            throw new IllegalArgumentException(format("Expected a readAhead and ioThreads of at least 1. '%s' and '%s' were provided.", readAhead, ioThreads));
+        }
+        this.fileReader = fileReader;
+        this.readAhead = readAhead;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.ioExecutor = Executors.newFixedThreadPool(ioThreads, runnable -> {
+            Thread thread = new Thread(runnable, "westie-prefetch-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public int readAhead() {
+        return readAhead;
+    }
+
+    /**
+     * Starts reading the file in the background, unless it is already being read, is streamed by the provided reader
+     * or would take the files read ahead over 'maxInFlightBytes'.
+     */
+    @Override
+    public void prefetch(Path filePath, BasicFileAttributes attrs) {
+        long size = attrs.size();
+        if (prefetchedFiles.containsKey(filePath) || fileReader.streamsLinesOf(attrs) || !reserve(size)) {
+            return;
+        }
+        Future<FileContent> content = ioExecutor.submit(() -> fileReader.readContent(filePath));
+        if (prefetchedFiles.putIfAbsent(filePath, new PrefetchedFile(content, size)) != null) {
+            content.cancel(true);
+            inFlightBytes.addAndGet(-size);
+        }
+    }
+
+    @Override
+    public List<String> readAllLines(Path filePath) throws IOException {
+        return readContent(filePath).lines();
+    }
+
+    @Override
+    public FileContent readContent(Path filePath) throws IOException {
+        PrefetchedFile prefetchedFile = prefetchedFiles.remove(filePath);
+        if (prefetchedFile == null) {
+            return fileReader.readContent(filePath);
+        }
+        try {
+            return prefetchedFile.content.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(format("Interrupted whilst waiting for '%s' to be read.", filePath));
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw new IOException(e.getCause());
+        } finally {
+            inFlightBytes.addAndGet(-prefetchedFile.size);
+        }
+    }
+
+    /**
+     * Streams the prefetched content of the file if it was read ahead, otherwise streams it from the provided reader.
+     */
+    @Override
+    public Stream<String> lines(Path filePath) throws IOException {
+        if (prefetchedFiles.containsKey(filePath)) {
+            return readContent(filePath).lines().stream();
+        }
+        return fileReader.lines(filePath);
+    }
+
+    @Override
+    public boolean streamsLinesOf(BasicFileAttributes attrs) {
+        return fileReader.streamsLinesOf(attrs);
+    }
+
+    /**
+     * Cancels the reads of any files prefetched but not read, releasing their share of 'maxInFlightBytes'.
+     * A file prefetched by a walk which then stopped, or skipped it, is read afresh by the next walk.
+     */
+    @Override
+    public void discardPrefetched() {
+        for (Path filePath : prefetchedFiles.keySet()) {
+            PrefetchedFile prefetchedFile = prefetchedFiles.remove(filePath);
+            if (prefetchedFile != null) {
+                prefetchedFile.content.cancel(true);
+                inFlightBytes.addAndGet(-prefetchedFile.size);
+            }
+        }
+    }
+
+    /**
+     * Stops the I/O threads and discards any files read ahead but not yet analysed.
+     */
+    @Override
+    public void close() {
+        ioExecutor.shutdownNow();
+        discardPrefetched();
+    }
+
+    private boolean reserve(long size) {
+        while (true) {
+            long current = inFlightBytes.get();
+            if (current + size > maxInFlightBytes) {
+                return false;
+            }
+            if (inFlightBytes.compareAndSet(current, current + size)) {
+                return true;
+            }
+        }
+    }
+
+    private static final class PrefetchedFile {
+
+        private final Future<FileContent> content;
+        private final long size;
+
+        private PrefetchedFile(Future<FileContent> content, long size) {
+            this.content = content;
+            this.size = size;
+        }
+    }
+}
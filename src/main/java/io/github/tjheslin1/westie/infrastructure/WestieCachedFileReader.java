@@ -17,14 +17,21 @@
  */
 package io.github.tjheslin1.westie.infrastructure;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 
@@ -32,17 +39,51 @@ import static java.lang.String.format;
  * Reads the lines of a file and caches the result.
  * Subsequent reads to the same file, based on the
  * {@link Path} provided, lookup in the cache instead.
+ * <p>
+ * Files are cached as a single byte array, with one byte per character for Latin-1 files, plus their line offsets,
+ * optionally held off the heap.
+ * The cache holds at most a maximum weight of file content, measured in bytes of heap,
+ * evicting the least recently used files once it is full.
+ * Each read checks the file's last modified time and size, reading the file again if either has changed.
+ * Files larger than the streaming threshold bypass the cache,
+ * and are read lazily line by line by {@link #lines(Path)}.
+ * Use a {@link WestieCachedFileReaderBuilder} to configure either limit.
  */
 public class WestieCachedFileReader implements WestieFileReader {
 
+    public static final long DEFAULT_STREAMING_THRESHOLD_BYTES = 16 * 1024 * 1024;
+    public static final long DEFAULT_MAXIMUM_WEIGHT_BYTES = 256 * 1024 * 1024;
+
     private final FileLinesReader fileLinesReader;
+    private final long streamingThresholdBytes;
+    private final boolean offHeap;
+    private final LongAdder staleReloadCount = new LongAdder();
+    private final LongAdder uncachedLargeFileReadCount = new LongAdder();
+    private final LongAdder loadedBytes = new LongAdder();
+    private final Cache<Path, CachedFileContent> filesContentCache;
 
     public WestieCachedFileReader() {
-        this.fileLinesReader = new FileLinesReader();
+        this(new FileLinesReader());
     }
 
     public WestieCachedFileReader(FileLinesReader fileLinesReader) {
+        this(fileLinesReader, DEFAULT_STREAMING_THRESHOLD_BYTES);
+    }
+
+    /**
+     * @param fileLinesReader         Reads the files.
+     * @param streamingThresholdBytes Files larger than this are not cached, and are streamed by {@link #lines(Path)}.
+     */
+    public WestieCachedFileReader(FileLinesReader fileLinesReader, long streamingThresholdBytes) {
+        this(fileLinesReader, streamingThresholdBytes, DEFAULT_MAXIMUM_WEIGHT_BYTES, false, false);
+    }
+
+    WestieCachedFileReader(FileLinesReader fileLinesReader, long streamingThresholdBytes,
+                           long maximumWeightBytes, boolean softValues, boolean offHeap) {
         this.fileLinesReader = fileLinesReader;
+        this.streamingThresholdBytes = streamingThresholdBytes;
+        this.offHeap = offHeap;
+        this.filesContentCache = contentCache(maximumWeightBytes, softValues);
     }
 
     /**
@@ -54,18 +95,142 @@ public class WestieCachedFileReader implements WestieFileReader {
      */
     @Override
     public List<String> readAllLines(Path filePath) throws IOException {
-        if (!Files.isRegularFile(filePath)) {
-            throw new IllegalStateException(format("Expected a file to read. Instead was provided: '%s'", filePath));
+        BasicFileAttributes attrs = fileAttributes(filePath);
+        if (isUncachedLargeFile(attrs)) {
+            return fileLinesReader.readAllLines(filePath);
+        }
+        return cachedContent(filePath, attrs).lines();
+    }
+
+    /**
+     * Reads the content of a file and caches the result in a compact, byte encoded, form
+     * unless the file is larger than the streaming threshold.
+     * The same {@link FileContent} is returned for every read of an unchanged cached file,
+     * so its content and lines are only decoded once.
+     *
+     * @param filePath The {@link Path} to the file to read.
+     * @return The {@link FileContent} of the file.
+     * @throws IOException If an exception occurs reading the file.
+     */
+    @Override
+    public FileContent readContent(Path filePath) throws IOException {
+        BasicFileAttributes attrs = fileAttributes(filePath);
+        if (isUncachedLargeFile(attrs)) {
+            return FileContent.fromLines(fileLinesReader.readAllLines(filePath));
+        }
+        return cachedContent(filePath, attrs);
+    }
+
+    /**
+     * Reads the lines of a file from the cache, or lazily from disk without caching them
+     * if the file is larger than the streaming threshold.
+     *
+     * @param filePath The {@link Path} to the file to read.
+     * @return The lines of the file as a Stream of Strings, which must be closed once consumed.
+     * @throws IOException If an exception occurs opening the file.
+     */
+    @Override
+    public Stream<String> lines(Path filePath) throws IOException {
+        BasicFileAttributes attrs = fileAttributes(filePath);
+        if (isUncachedLargeFile(attrs)) {
+            return fileLinesReader.lines(filePath);
         }
-        return filesLinesCache.getUnchecked(filePath);
+        return cachedContent(filePath, attrs).lines().stream();
     }
 
+    /**
+     * @param attrs The attributes of the file.
+     * @return true if the file is larger than the streaming threshold, so is streamed by {@link #lines(Path)}.
+     */
+    @Override
+    public boolean streamsLinesOf(BasicFileAttributes attrs) {
+        return attrs.size() > streamingThresholdBytes;
+    }
 
-    private final LoadingCache<Path, List<String>> filesLinesCache = CacheBuilder.<Path, List<String>>newBuilder()
-            .build(new CacheLoader<Path, List<String>>() {
-                @Override
-                public List<String> load(Path key) throws IOException {
-                    return fileLinesReader.readAllLines(key);
-                }
-            });
-}
\ No newline at end of file
+    /**
+     * @return A snapshot of the cache's hits, loads and evictions, and the bytes it holds, since it was created.
+     */
+    public CachedFileReaderStats stats() {
+        CacheStats cacheStats = filesContentCache.stats();
+        long cachedBytes = 0;
+        for (CachedFileContent cached : filesContentCache.asMap().values()) {
+            cachedBytes += cached.fileContent.weightInBytes();
+        }
+        return new CachedFileReaderStats(cacheStats.hitCount() - staleReloadCount.sum(),
+                cacheStats.loadSuccessCount(), cacheStats.loadExceptionCount(), staleReloadCount.sum(),
+                cacheStats.evictionCount(), uncachedLargeFileReadCount.sum(), cacheStats.totalLoadTime(),
+                filesContentCache.size(), cachedBytes, loadedBytes.sum());
+    }
+
+    private FileContent cachedContent(Path filePath, BasicFileAttributes attrs) {
+        Callable<CachedFileContent> loader = () -> new CachedFileContent(readCompactContent(filePath), attrs);
+        try {
+            CachedFileContent cached = filesContentCache.get(filePath, loader);
+            if (!cached.isUpToDate(attrs)) {
+                staleReloadCount.increment();
+                filesContentCache.invalidate(filePath);
+                cached = filesContentCache.get(filePath, loader);
+            }
+            return cached.fileContent;
+        } catch (ExecutionException e) {
+            throw new UncheckedExecutionException(e.getCause());
+        }
+    }
+
+    private CompactFileContent readCompactContent(Path filePath) throws IOException {
+        CompactFileContent compactContent = CompactFileContent.fromLines(fileLinesReader.readAllLines(filePath));
+        loadedBytes.add(compactContent.weightInBytes());
+        return offHeap ? compactContent.offHeap() : compactContent;
+    }
+
+    private boolean isUncachedLargeFile(BasicFileAttributes attrs) {
+        if (attrs.size() > streamingThresholdBytes) {
+            uncachedLargeFileReadCount.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private BasicFileAttributes fileAttributes(Path filePath) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(filePath, BasicFileAttributes.class);
+            if (attrs.isRegularFile()) {
+                return attrs;
+            }
+        } catch (IOException e) {
+            // reported below, as for any other path which isn't a regular file
+        }
+        throw new IllegalStateException(format("Expected a file to read. Instead was provided: '%s'", filePath));
+    }
+
+    private Cache<Path, CachedFileContent> contentCache(long maximumWeightBytes, boolean softValues) {
+        CacheBuilder<Path, CachedFileContent> cacheBuilder = CacheBuilder.newBuilder()
+                .recordStats()
+                .maximumWeight(maximumWeightBytes)
+                .weigher((Path file, CachedFileContent cached) -> cached.fileContent.weightInBytes());
+        if (softValues) {
+            cacheBuilder.softValues();
+        }
+        return cacheBuilder.build();
+    }
+
+    /**
+     * The content of a file along with the last modified time and size it had before it was read.
+     */
+    private static final class CachedFileContent {
+
+        private final FileContent fileContent;
+        private final FileTime lastModifiedTime;
+        private final long size;
+
+        private CachedFileContent(CompactFileContent compactContent, BasicFileAttributes attrs) {
+            this.fileContent = new FileContent(compactContent);
+            this.lastModifiedTime = attrs.lastModifiedTime();
+            this.size = attrs.size();
+        }
+
+        private boolean isUpToDate(BasicFileAttributes attrs) {
+            return size == attrs.size() && lastModifiedTime.equals(attrs.lastModifiedTime());
+        }
+    }
+}
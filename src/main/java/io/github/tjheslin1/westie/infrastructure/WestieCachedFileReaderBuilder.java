@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import static io.github.tjheslin1.westie.infrastructure.WestieCachedFileReader.DEFAULT_MAXIMUM_WEIGHT_BYTES;
+import static io.github.tjheslin1.westie.infrastructure.WestieCachedFileReader.DEFAULT_STREAMING_THRESHOLD_BYTES;
+
+/**
+ * Builder pattern for constructing a {@link WestieCachedFileReader}.
+ */
+public class WestieCachedFileReaderBuilder {
+
+    private FileLinesReader fileLinesReader = new FileLinesReader();
+    private long maximumWeightBytes = DEFAULT_MAXIMUM_WEIGHT_BYTES;
+    private long streamingThresholdBytes = DEFAULT_STREAMING_THRESHOLD_BYTES;
+    private boolean softValues;
+    private boolean offHeap;
+
+    public WestieCachedFileReaderBuilder withFileLinesReader(FileLinesReader fileLinesReader) {
+        this.fileLinesReader = fileLinesReader;
+        return this;
+    }
+
+    /**
+     * @param maximumWeightBytes The approximate memory, in bytes, the cached file content may use,
+     *                           on or off the heap, before the least recently used files are evicted.
+     * @return The current state of the {@link WestieCachedFileReaderBuilder}
+     */
+    public WestieCachedFileReaderBuilder withMaximumWeightBytes(long maximumWeightBytes) {
+        this.maximumWeightBytes = maximumWeightBytes;
+        return this;
+    }
+
+    /**
+     * @param streamingThresholdBytes Files larger than this are not cached, and are streamed line by line.
+     * @return The current state of the {@link WestieCachedFileReaderBuilder}
+     */
+    public WestieCachedFileReaderBuilder withStreamingThresholdBytes(long streamingThresholdBytes) {
+        this.streamingThresholdBytes = streamingThresholdBytes;
+        return this;
+    }
+
+    /**
+     * Holds the cached file content by soft reference, so the garbage collector may evict it
+     * before the maximum weight is reached if the heap runs low.
+     *
+     * @return The current state of the {@link WestieCachedFileReaderBuilder}
+     */
+    public WestieCachedFileReaderBuilder withSoftValues() {
+        this.softValues = true;
+        return this;
+    }
+
+    /**
+     * Holds the cached file content in direct buffers, outside of the heap, so that the garbage collector
+     * never scans or copies it. The maximum weight then limits the off-heap memory used by the cache,
+     * which must also fit within the JVM's `-XX:MaxDirectMemorySize`.
+     * <p>
+     * The memory of an evicted file is released once the garbage collector finds it is no longer referenced.
+     *
+     * @return The current state of the {@link WestieCachedFileReaderBuilder}
+     */
+    public WestieCachedFileReaderBuilder withOffHeapStorage() {
+        this.offHeap = true;
+        return this;
+    }
+
+    /**
+     * @return A {@link WestieCachedFileReader} constructed with the fields set by the builder methods.
+     */
+    public WestieCachedFileReader build() {
+        return new WestieCachedFileReader(fileLinesReader, streamingThresholdBytes, maximumWeightBytes, softValues, offHeap);
+    }
+}
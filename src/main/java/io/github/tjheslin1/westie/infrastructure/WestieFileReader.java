@@ -21,7 +21,9 @@ import io.github.tjheslin1.westie.WestieAnalyser;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * File reading used by {@link WestieAnalyser} extensions to
@@ -38,4 +40,69 @@ public interface WestieFileReader {
      * @throws IOException If an exception occurs reading the file.
      */
     List<String> readAllLines(Path filePath) throws IOException;
+
+    /**
+     * Reads the lines of a file as a {@link Stream}, which must be closed once consumed.
+     * <p>
+     * Implementations may read the file lazily, so that large files are never held in memory in full.
+     * An exception reading a line part way through the file is thrown from the {@link Stream} as an unchecked exception.
+     *
+     * @param filePath The {@link Path} to the file to read.
+     * @return The lines of the file as a Stream of Strings.
+     * @throws IOException If an exception occurs opening the file.
+     */
+    default Stream<String> lines(Path filePath) throws IOException {
+        return readAllLines(filePath).stream();
+    }
+
+    /**
+     * Reads the whole content of a file, with its lines separated by {@link System#lineSeparator()}.
+     * Implementations which cache files should cache the {@link FileContent}, so that it is shared between rules.
+     *
+     * @param filePath The {@link Path} to the file to read.
+     * @return The {@link FileContent} of the file.
+     * @throws IOException If an exception occurs reading the file.
+     */
+    default FileContent readContent(Path filePath) throws IOException {
+        return FileContent.fromLines(readAllLines(filePath));
+    }
+
+    /**
+     * The number of files a walk should announce with {@link #prefetch(Path, BasicFileAttributes)}
+     * ahead of the file being analysed. By default nothing is read ahead.
+     *
+     * @return The number of files to read ahead.
+     */
+    default int readAhead() {
+        return 0;
+    }
+
+    /**
+     * Hints that the file will be read soon, allowing implementations to start reading it in the background.
+     * By default this does nothing.
+     *
+     * @param filePath The {@link Path} to the file which will be read.
+     * @param attrs    The attributes of the file, read during the walk.
+     */
+    default void prefetch(Path filePath, BasicFileAttributes attrs) {
+    }
+
+    /**
+     * Discards any files announced with {@link #prefetch(Path, BasicFileAttributes)} which were not then read.
+     * Called once each walk ends, whether it completed or not, so nothing read ahead outlives the walk.
+     * By default this does nothing.
+     */
+    default void discardPrefetched() {
+    }
+
+    /**
+     * Whether {@link #lines(Path)} reads a file of this size lazily, rather than holding it in memory in full.
+     * Such files are not worth reading ahead. By default no file is streamed.
+     *
+     * @param attrs The attributes of the file.
+     * @return true if the file's lines are streamed.
+     */
+    default boolean streamsLinesOf(BasicFileAttributes attrs) {
+        return false;
+    }
 }
@@ -17,16 +17,18 @@
  */
 package io.github.tjheslin1.westie.jiraissue;
 
+import io.github.tjheslin1.westie.IssueReferenceAnalysis;
+import io.github.tjheslin1.westie.TodoIssuePattern;
 import io.github.tjheslin1.westie.Violation;
 import io.github.tjheslin1.westie.WestieAnalyser;
+import io.github.tjheslin1.westie.WestieAnalysisSession;
+import io.github.tjheslin1.westie.WestieDirectoryAnalyser;
 import io.github.tjheslin1.westie.infrastructure.JiraIssues;
 import io.github.tjheslin1.westie.infrastructure.WestieFileReader;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
@@ -37,21 +39,22 @@ import static java.util.Collections.emptyList;
  */
 public class JiraReferenceAnalyser {
 
-    private static final String JIRA_TODO_REGEX_FORMAT = ".*//.*(T|t)(O|o)(D|d)(O|o).*%s.*";
-
     private final JiraIssues jiraIssues;
-    private final String jiraRegex;
+    private final TodoIssuePattern todoIssuePattern;
     private final WestieAnalyser westieAnalyser;
 
+    private IssueReferenceAnalysis issueReferenceAnalysis = new IssueReferenceAnalysis();
+    private boolean memoryMappedScan;
+
     public JiraReferenceAnalyser(JiraIssues jiraIssues, String jiraRegex) {
         this.jiraIssues = jiraIssues;
-        this.jiraRegex = jiraRegex;
+        this.todoIssuePattern = new TodoIssuePattern("Jira", jiraRegex);
         this.westieAnalyser = new WestieAnalyser();
     }
 
     public JiraReferenceAnalyser(JiraIssues jiraIssues, String jiraRegex, WestieFileReader fileReader) {
         this.jiraIssues = jiraIssues;
-        this.jiraRegex = jiraRegex;
+        this.todoIssuePattern = new TodoIssuePattern("Jira", jiraRegex);
         this.westieAnalyser = new WestieAnalyser(fileReader);
     }
 
@@ -75,29 +78,63 @@ public class JiraReferenceAnalyser {
      * @throws IOException if an I/O error occurs when opening the directory.
      */
     public List<Violation> todosAreInAllowedStatuses(Path pathToCheck, List<String> filesToIgnore) throws IOException {
-        return westieAnalyser.analyseDirectory(pathToCheck)
-                .forJavaFiles().ignoring(filesToIgnore)
-                .analyseLinesOfFile(this::checkJiraTodos, format("Violation was caused by a reference to a " +
-                        "Jira issue which is not in any of the accepted statuses: '%s'.", jiraIssues.allowedStatuses()));
+        WestieDirectoryAnalyser directoryAnalyser = westieAnalyser.analyseDirectory(pathToCheck)
+                .forJavaFiles().ignoring(filesToIgnore);
+        if (memoryMappedScan) {
+            directoryAnalyser.usingMemoryMappedScan();
+        }
+        return issueReferenceAnalysis.analyseWithAsyncLookups(directoryAnalyser.analysisSession(), todoIssuePattern, violationMessage(),
+                jiraIssues.jiraHostname(), jiraIssues::prefetchStatuses,
+                issue -> jiraIssues.isJiraIssueInAllowedStatusAsync(issue).thenApply(allowed -> !allowed));
     }
 
-    private boolean checkJiraTodos(String fileLine) {
-        return isJiraTodoLine(fileLine) && jiraIssueInUnacceptedState(fileLine);
+    /**
+     * Scans memory-mapped files, only decoding the lines containing a to-do comment,
+     * see {@link WestieDirectoryAnalyser#usingMemoryMappedScan()}.
+     * <p>
+     * Files are assumed to be UTF-8 and are not read with the {@link WestieFileReader}, so byte order marks,
+     * charsets configured in a {@link io.github.tjheslin1.westie.infrastructure.FileLinesReader} and any cache are bypassed.
+     * A file which isn't valid UTF-8, or is binary, is only reported as unable to be read if the malformed input
+     * is on a to-do line. Files under 1 MB are read into memory rather than mapped.
+     *
+     * @return this {@link JiraReferenceAnalyser} back with 'memoryMappedScan' enabled.
+     */
+    public JiraReferenceAnalyser usingMemoryMappedScan() {
+        this.memoryMappedScan = true;
+        return this;
     }
 
-    private boolean isJiraTodoLine(String line) {
-        return line.matches(format(JIRA_TODO_REGEX_FORMAT, jiraRegex));
+    /**
+     * Bounds how many issues {@link #todosAreInAllowedStatuses} looks up at once.
+     *
+     * @param issueReferenceAnalysis Looks up the referenced issues, see {@link IssueReferenceAnalysis}.
+     * @return this {@link JiraReferenceAnalyser} back with 'issueReferenceAnalysis' set.
+     */
+    public JiraReferenceAnalyser lookingUpIssuesWith(IssueReferenceAnalysis issueReferenceAnalysis) {
+        this.issueReferenceAnalysis = issueReferenceAnalysis;
+        return this;
     }
 
-    private boolean jiraIssueInUnacceptedState(String line) {
-        Pattern pattern = Pattern.compile(jiraRegex);
-        Matcher matcher = pattern.matcher(line);
+    /**
+     * Registers this analyser's rule with a {@link WestieAnalysisSession}, so that it is applied
+     * in the same walk of the directory as any other registered rules.
+     * Unlike {@link #todosAreInAllowedStatuses}, issues are looked up one at a time, as their lines are found.
+     *
+     * @param analysisSession The session to register the rule with.
+     * @return The provided {@link WestieAnalysisSession}, with the rule registered.
+     */
+    public WestieAnalysisSession registerRules(WestieAnalysisSession analysisSession) {
+        return analysisSession.analyseLinesOfFile(todoIssuePattern.prefilter(), this::checkJiraTodos, violationMessage());
+    }
 
-        if (matcher.find()) {
-            String jiraIssue = matcher.group();
-            return !jiraIssues.isJiraIssueInAllowedStatus(jiraIssue);
-        } else {
-            throw new IllegalStateException(format("Unable to find Jira Issue in line '%s' using regex '%s'", line, jiraRegex));
-        }
+    private String violationMessage() {
+        return format("Violation was caused by a reference to a " +
+                "Jira issue which is not in any of the accepted statuses: '%s'.", jiraIssues.allowedStatuses());
+    }
+
+    private boolean checkJiraTodos(String line) {
+        return todoIssuePattern.referencedIssue(line)
+                .map(issue -> !jiraIssues.isJiraIssueInAllowedStatus(issue))
+                .orElse(false);
     }
 }
@@ -17,13 +17,16 @@
  */
 package io.github.tjheslin1.westie.todostructure;
 
+import io.github.tjheslin1.westie.LinePrefilter;
 import io.github.tjheslin1.westie.Violation;
 import io.github.tjheslin1.westie.WestieAnalyser;
+import io.github.tjheslin1.westie.WestieAnalysisSession;
 import io.github.tjheslin1.westie.infrastructure.WestieFileReader;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import static io.github.tjheslin1.westie.WestieRegexes.TODO_REGEX;
 import static java.util.Collections.emptyList;
@@ -35,16 +38,22 @@ import static java.util.Collections.emptyList;
  */
 public class TodosStructureAnalyser {
 
+    private static final LinePrefilter TODO_PREFILTER = LinePrefilter.requiredBy(TODO_REGEX);
+    private static final Pattern TODO = Pattern.compile(TODO_REGEX);
+
     private final String todosStructureRegex;
+    private final Pattern todosStructure;
     private final WestieAnalyser westieAnalyser;
 
     public TodosStructureAnalyser(String todosStructureRegex) {
         this.todosStructureRegex = todosStructureRegex;
+        this.todosStructure = Pattern.compile(todosStructureRegex);
         this.westieAnalyser = new WestieAnalyser();
     }
 
     public TodosStructureAnalyser(String todosStructureRegex, WestieFileReader fileReader) {
         this.todosStructureRegex = todosStructureRegex;
+        this.todosStructure = Pattern.compile(todosStructureRegex);
         this.westieAnalyser = new WestieAnalyser(fileReader);
     }
 
@@ -64,11 +73,25 @@ public class TodosStructureAnalyser {
      * @throws IOException if an I/O error occurs when opening the directory.
      */
     public List<Violation> checkAllTodosFollowExpectedStructure(Path pathToCheck, List<String> filesToIgnore) throws IOException {
-        return westieAnalyser
+        return registerRules(westieAnalyser
                 .analyseDirectory(pathToCheck)
                 .forJavaFiles().ignoring(filesToIgnore)
-                .analyseLinesOfFile(this::todosFollowStructure,
-                        "Violation was caused by the TODO not matching structure with regex: " + todosStructureRegex);
+                .analysisSession()).analyse();
+    }
+
+    /**
+     * Registers this analyser's rule with a {@link WestieAnalysisSession}, so that it is applied
+     * in the same walk of the directory as any other registered rules.
+     *
+     * @param analysisSession The session to register the rule with.
+     * @return The provided {@link WestieAnalysisSession}, with the rule registered.
+     */
+    public WestieAnalysisSession registerRules(WestieAnalysisSession analysisSession) {
+        return analysisSession.analyseLinesOfFile(TODO_PREFILTER, this::todosFollowStructure, violationMessage());
+    }
+
+    private String violationMessage() {
+        return "Violation was caused by the TODO not matching structure with regex: " + todosStructureRegex;
     }
 
     private boolean todosFollowStructure(String fileLine) {
@@ -76,10 +99,10 @@ public class TodosStructureAnalyser {
     }
 
     private boolean lineContainsTodo(String line) {
-        return line.matches(TODO_REGEX);
+        return TODO.matcher(line).matches();
     }
 
     private boolean lineDoesNotConformToStructure(String todoLine) {
-        return !todoLine.matches(todosStructureRegex);
+        return !todosStructure.matcher(todoLine).matches();
     }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+
+import static io.github.tjheslin1.westie.IgnoredFiles.ignoredFiles;
+import static java.util.Arrays.asList;
+
+public class IgnoredFilesTest implements WithAssertions {
+
+    @Test
+    public void ignoresFilesEndingWithAnyProvidedName() throws Exception {
+        IgnoredFiles ignoredFiles = ignoredFiles(asList("Generated", "examples/todos/ClassWithTodos.java", "Other.java"), ".java");
+
+        assertThat(ignoredFiles.isIgnored(Paths.get("src/main/java/com/example/Generated.java"))).isTrue();
+        assertThat(ignoredFiles.isIgnored(Paths.get("src/test/resources/examples/todos/ClassWithTodos.java"))).isTrue();
+        assertThat(ignoredFiles.isIgnored(Paths.get("Other.java"))).isTrue();
+        assertThat(ignoredFiles.isIgnored(Paths.get("src/main/java/com/example/Generated.properties"))).isFalse();
+        assertThat(ignoredFiles.isIgnored(Paths.get("java"))).isFalse();
+    }
+
+    @Test
+    public void ignoresNothingWhenNoNamesProvided() throws Exception {
+        IgnoredFiles ignoredFiles = ignoredFiles(asList(), null);
+
+        assertThat(ignoredFiles.isIgnored(Paths.get("src/main/java/com/example/Generated.java"))).isFalse();
+    }
+}
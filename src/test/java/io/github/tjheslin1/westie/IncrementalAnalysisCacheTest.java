@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import io.github.tjheslin1.westie.infrastructure.WestieFileReader;
+import io.github.tjheslin1.westie.testinfrastructure.TestWestieFileReader;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+public class IncrementalAnalysisCacheTest implements WithAssertions {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<Path> filesRead = new ArrayList<>();
+    private final WestieFileReader countingFileReader = file -> {
+        filesRead.add(file);
+        return new TestWestieFileReader().readAllLines(file);
+    };
+
+    private Path sourceDirectory;
+    private Path cacheFile;
+    private Path sourceFile;
+
+    @Before
+    public void setUp() throws Exception {
+        sourceDirectory = temporaryFolder.newFolder("src").toPath();
+        cacheFile = temporaryFolder.getRoot().toPath().resolve("build").resolve("westie-cache.json");
+        sourceFile = Files.write(sourceDirectory.resolve("Cached.java"), asList("public class Cached {", "    // TODO cache me", "}"));
+    }
+
+    @Test
+    public void replaysViolationsOfUnchangedFilesWithoutReadingThem() throws Exception {
+        List<Violation> firstViolations = analyse("1");
+        List<Violation> secondViolations = analyse("1");
+
+        assertThat(firstViolations).hasSize(1);
+        assertThat(secondViolations).isEqualTo(firstViolations);
+        assertThat(filesRead).containsExactly(sourceFile);
+    }
+
+    @Test
+    public void analysesFileAgainWhenItChanges() throws Exception {
+        analyse("1");
+        Files.write(sourceFile, asList("public class Cached {", "    // TODO cache me", "    // TODO and me", "}"));
+
+        List<Violation> violations = analyse("1");
+
+        assertThat(violations).hasSize(2);
+        assertThat(filesRead).containsExactly(sourceFile, sourceFile);
+    }
+
+    @Test
+    public void replaysViolationsWhenOnlyLastModifiedTimeChanges() throws Exception {
+        List<Violation> firstViolations = analyse("1");
+        Files.setLastModifiedTime(sourceFile, FileTime.fromMillis(0));
+
+        List<Violation> secondViolations = analyse("1");
+
+        assertThat(secondViolations).isEqualTo(firstViolations);
+        assertThat(analyse("1")).isEqualTo(firstViolations);
+        assertThat(filesRead).containsExactly(sourceFile, sourceFile);
+    }
+
+    @Test
+    public void discardsCacheWhenRulesVersionChanges() throws Exception {
+        analyse("1");
+        analyse("2");
+
+        assertThat(filesRead).containsExactly(sourceFile, sourceFile);
+    }
+
+    @Test
+    public void doesNotCacheViolationsOfRulesWhichThrew() throws Exception {
+        List<Violation> firstViolations = new WestieDirectoryAnalyser(sourceDirectory, ".java", countingFileReader)
+                .cachingViolationsIn(cacheFile, "1")
+                .analysisSession()
+                .analyseFileContent(content -> {
+                    throw new IllegalStateException("rule broke");
+                }, "Expected violation message 1234")
+                .analyse();
+        List<Violation> secondViolations = new WestieDirectoryAnalyser(sourceDirectory, ".java", countingFileReader)
+                .cachingViolationsIn(cacheFile, "1")
+                .analysisSession()
+                .analyseFileContent(content -> content.contains("TODO"), "Expected violation message 1234")
+                .analyse();
+
+        assertThat(firstViolations.get(0).toString()).contains("rule broke");
+        assertThat(secondViolations.get(0).toString()).contains("Expected violation message 1234");
+        assertThat(filesRead).containsExactly(sourceFile, sourceFile);
+    }
+
+    private List<Violation> analyse(String rulesVersion) throws Exception {
+        return new WestieDirectoryAnalyser(sourceDirectory, ".java", countingFileReader)
+                .cachingViolationsIn(cacheFile, rulesVersion)
+                .analyseLinesOfFile(line -> line.contains("TODO"), "Expected violation message 1234");
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.tjheslin1.westie;
+
+import io.github.tjheslin1.westie.testinfrastructure.TestWestieFileReader;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IssueReferenceAnalysisTest implements WithAssertions {
+
+    private static final String VIOLATION_MESSAGE = "Issue fails rule";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void reportsTheLinesReferencingIssuesWhichFailTheRule() throws Exception {
+        Set<String> prefetchedIssues = new HashSet<>();
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/jira");
+
+        List<Violation> violations = new IssueReferenceAnalysis().analyse(
+                new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader()).analysisSession(),
+                new TodoIssuePattern("Jira", "MON-[0-9]{3}"), VIOLATION_MESSAGE, "localhost",
+                prefetchedIssues::addAll, "MON-101"::equals);
+
+        assertThat(prefetchedIssues).containsOnly("MON-100", "MON-101");
+        assertThat(violations).hasSize(2);
+        LineAssertions lineAssertions = new LineAssertions(violations);
+        lineAssertions.containsViolationMessage("Violation in file 'ClassWithJiraTodos.java'\n" +
+                "\n" +
+                "        // TODO MON-101 set passed parameter as name\n" +
+                "\n" +
+                "Issue fails rule\n");
+        lineAssertions.containsViolationMessage("Violation in file 'ClassWithJiraTodos.java'\n" +
+                "\n" +
+                "    // todo MON-101 blah\n" +
+                "\n" +
+                "Issue fails rule\n");
+    }
+
+    @Test
+    public void boundsTheLookupsInFlightToOneHost() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int issue = 0; issue < 12; issue++) {
+            lines.add("// TODO MON-" + issue);
+        }
+        Files.write(temporaryFolder.newFile("Todos.java").toPath(), lines);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Violation> violations = new IssueReferenceAnalysis(4, 2).analyse(
+                new WestieDirectoryAnalyser(temporaryFolder.getRoot().toPath(), ".java", new TestWestieFileReader()).analysisSession(),
+                new TodoIssuePattern("Jira", "MON-[0-9]+"), VIOLATION_MESSAGE, "localhost",
+                issues -> {
+                }, issue -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    inFlight.decrementAndGet();
+                    return true;
+                });
+
+        assertThat(violations).hasSize(12);
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void holdsAsyncLookupsInFlightUntilTheyComplete() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int issue = 0; issue < 30; issue++) {
+            lines.add("// TODO MON-" + issue);
+        }
+        Files.write(temporaryFolder.newFile("Todos.java").toPath(), lines);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ScheduledExecutorService responses = Executors.newSingleThreadScheduledExecutor();
+        try {
+            List<Violation> violations = new IssueReferenceAnalysis(20, 10).analyseWithAsyncLookups(
+                    new WestieDirectoryAnalyser(temporaryFolder.getRoot().toPath(), ".java", new TestWestieFileReader()).analysisSession(),
+                    new TodoIssuePattern("Jira", "MON-[0-9]+"), VIOLATION_MESSAGE, "localhost",
+                    issues -> {
+                    }, issue -> {
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        CompletableFuture<Boolean> response = new CompletableFuture<>();
+                        responses.schedule(() -> {
+                            inFlight.decrementAndGet();
+                            response.complete(issue.endsWith("7"));
+                        }, 20, TimeUnit.MILLISECONDS);
+                        return response;
+                    });
+
+            assertThat(violations).hasSize(3);
+            assertThat(maxInFlight.get()).isEqualTo(10);
+        } finally {
+            responses.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectsNoLookupsInFlight() throws Exception {
+        assertThatThrownBy(() -> new IssueReferenceAnalysis(0, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static io.github.tjheslin1.westie.WestieRegexes.TODOS_MUST_HAVE_DATE_REGEX;
+import static io.github.tjheslin1.westie.WestieRegexes.TODO_REGEX;
+import static java.util.Arrays.asList;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class LinePrefilterTest implements WithAssertions {
+
+    private static final LinePrefilter TODO_COMMENT = LinePrefilter.containing("//")
+            .and(LinePrefilter.containingIgnoringCase("todo"));
+
+    @Test
+    public void matchesLinesContainingEveryLiteral() throws Exception {
+        assertThat(TODO_COMMENT.matches("    // ToDo tidy up")).isTrue();
+        assertThat(TODO_COMMENT.matches("    // tidy up")).isFalse();
+        assertThat(TODO_COMMENT.matches("    /* TODO tidy up */")).isFalse();
+    }
+
+    @Test
+    public void matchesEncodedLinesWithoutDecodingThem() throws Exception {
+        ByteBuffer bytes = ByteBuffer.wrap("\u00e9 // TODO caf\u00e9\nno comment here".getBytes(UTF_8));
+        int endOfFirstLine = "\u00e9 // TODO caf\u00e9".getBytes(UTF_8).length;
+
+        assertThat(TODO_COMMENT.matches(bytes, 0, endOfFirstLine)).isTrue();
+        assertThat(TODO_COMMENT.matches(bytes, endOfFirstLine + 1, bytes.limit())).isFalse();
+        assertThat(TODO_COMMENT.matches(bytes, 0, 6)).isFalse();
+    }
+
+    @Test
+    public void matchesLinesContainingTheLiteralsOfEitherPrefilter() throws Exception {
+        LinePrefilter packageOrImport = LinePrefilter.containing("package ").or(LinePrefilter.containing("import "));
+        ByteBuffer bytes = ByteBuffer.wrap("import a.B;".getBytes(UTF_8));
+
+        assertThat(packageOrImport.matches("package a;")).isTrue();
+        assertThat(packageOrImport.matches("import a.B;")).isTrue();
+        assertThat(packageOrImport.matches("public class B {")).isFalse();
+        assertThat(packageOrImport.matches(bytes, 0, bytes.limit())).isTrue();
+        assertThat(packageOrImport.and(LinePrefilter.containing("a.B")).matches("package a.B;")).isTrue();
+        assertThat(packageOrImport.and(LinePrefilter.containing("a.B")).matches("package a;")).isFalse();
+        assertThat(packageOrImport.or(LinePrefilter.anyLine()).matchesAnyLine()).isTrue();
+    }
+
+    @Test
+    public void anyLineMatchesEveryLine() throws Exception {
+        assertThat(LinePrefilter.anyLine().matches("")).isTrue();
+        assertThat(LinePrefilter.anyLine().matches(ByteBuffer.allocate(0), 0, 0)).isTrue();
+    }
+
+    @Test
+    public void rejectsLiteralsWhichAreNotAscii() throws Exception {
+        assertThatThrownBy(() -> LinePrefilter.containing("caf\u00e9"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Expected a non-empty ASCII literal. 'caf\u00e9' was provided.");
+    }
+
+    @Test
+    public void extractsTheLiteralsRequiredByARegex() throws Exception {
+        LinePrefilter todoRegex = LinePrefilter.requiredBy(TODO_REGEX);
+
+        assertThat(todoRegex.matches("    // ToDo tidy up")).isTrue();
+        assertThat(todoRegex.matches("    // tidy up")).isFalse();
+        assertThat(todoRegex.matches("    /* TODO tidy up */")).isFalse();
+        assertThat(todoRegex.matchesAnyLine()).isFalse();
+    }
+
+    @Test
+    public void doesNotRequireOptionalAtoms() throws Exception {
+        LinePrefilter prefilter = LinePrefilter.requiredBy("colou?r[s]* (MON-)?[0-9]{0,3}x\\.y");
+
+        assertThat(prefilter.matches("color 12x.y")).isTrue();
+        assertThat(prefilter.matches("colour 12x.y")).isTrue();
+        assertThat(prefilter.matches("color 12xzy")).isFalse();
+    }
+
+    @Test
+    public void letsEveryLineThroughForRegexesWhichCannotBeAnalysed() throws Exception {
+        assertThat(LinePrefilter.requiredBy("TODO|FIXME").matchesAnyLine()).isTrue();
+        assertThat(LinePrefilter.requiredBy("(?i)todo").matchesAnyLine()).isTrue();
+        assertThat(LinePrefilter.requiredBy("\\Qa.b\\E").matchesAnyLine()).isTrue();
+        assertThat(LinePrefilter.requiredBy("\\x41BC").matchesAnyLine()).isTrue();
+        assertThat(LinePrefilter.requiredBy(".*").matchesAnyLine()).isTrue();
+    }
+
+    @Test
+    public void treatsAControlCharacterEscapeAsOneCharacter() throws Exception {
+        LinePrefilter prefilter = LinePrefilter.requiredBy(".*\\cIx.*");
+
+        assertThat("a\tx".matches(".*\\cIx.*")).isTrue();
+        assertThat(prefilter.matches("a\tx")).isTrue();
+    }
+
+    @Test
+    public void neverRejectsALineWhichTheRegexMatches() throws Exception {
+        List<String> regexes = asList(TODO_REGEX, TODOS_MUST_HAVE_DATE_REGEX,
+                ".*//.*(T|t)(O|o)(D|d)(O|o).*MON-[0-9]{3}.*", ".*//.*(T|t)(O|o)(D|d)(O|o).*#[0-9]+.*",
+                ".*[]x]+yz.*", ".*a+b{2}(?:c|C)?d.*", ".*(?<issue>[A-Z]+-\\d+).*");
+        List<String> lines = asList("// TODO", "// todo MON-123", "  //ToDo 2017/Jan/01 #12", "]yz", "xyz",
+                "aabbd", "abbCd", "// TODO ABC-1", "no comment", "// tOdO #");
+
+        for (String regex : regexes) {
+            LinePrefilter prefilter = LinePrefilter.requiredBy(regex);
+            for (String line : lines) {
+                if (line.matches(regex)) {
+                    assertThat(prefilter.matches(line)).as("'%s' matched by '%s'", line, regex).isTrue();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+
+public class MappedLineScannerTest implements WithAssertions {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void splitsLinesAsBufferedReaderDoes() throws Exception {
+        Path file = write("first\r\nsecond\rthird\n\nlast");
+
+        assertThat(candidateLines(file, LinePrefilter.anyLine())).containsExactly("first", "second", "third", "", "last");
+    }
+
+    @Test
+    public void onlyDecodesLinesPassingThePrefilter() throws Exception {
+        byte[] malformed = {(byte) 0xC3, (byte) 0x28};
+        Path file = temporaryFolder.newFile("Malformed.java").toPath();
+        Files.write(file, "// TODO \u00e9\n".getBytes(UTF_8));
+        Files.write(file, malformed, StandardOpenOption.APPEND);
+
+        assertThat(candidateLines(file, LinePrefilter.containing("TODO"))).containsExactly("// TODO \u00e9");
+        assertThatThrownBy(() -> candidateLines(file, LinePrefilter.anyLine()))
+                .hasMessage("java.nio.charset.MalformedInputException: Input length = 1");
+    }
+
+    @Test
+    public void mapsFilesAboveTheMappingThreshold() throws Exception {
+        StringBuilder content = new StringBuilder();
+        while (content.length() <= MappedLineScanner.MAPPING_THRESHOLD_BYTES) {
+            content.append("filler line\n");
+        }
+        Path file = write(content.append("// TODO last").toString());
+
+        assertThat(candidateLines(file, LinePrefilter.containing("TODO"))).containsExactly("// TODO last");
+    }
+
+    @Test
+    public void emptyFileHasNoLines() throws Exception {
+        assertThat(candidateLines(write(""), LinePrefilter.anyLine())).isEmpty();
+    }
+
+    private Path write(String content) throws Exception {
+        return Files.write(temporaryFolder.newFile().toPath(), content.getBytes(UTF_8));
+    }
+
+    private List<String> candidateLines(Path file, LinePrefilter prefilter) throws Exception {
+        List<String> lines = new ArrayList<>();
+        MappedLineScanner.map(file, singletonList(prefilter)).forEachRemaining(lines::add);
+        return lines;
+    }
+}
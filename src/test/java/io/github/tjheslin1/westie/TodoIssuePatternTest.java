@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+public class TodoIssuePatternTest implements WithAssertions {
+
+    private final TodoIssuePattern todoIssuePattern = new TodoIssuePattern("Jira", "MON-[0-9]{3}");
+
+    @Test
+    public void findsTheIssueReferencedByATodoComment() throws Exception {
+        assertThat(todoIssuePattern.referencedIssue("    // ToDo MON-123 tidy up, see MON-456")).contains("MON-123");
+    }
+
+    @Test
+    public void ignoresLinesWhichAreNotTodoCommentsReferencingAnIssue() throws Exception {
+        assertThat(todoIssuePattern.referencedIssue("    // TODO tidy up")).isEmpty();
+        assertThat(todoIssuePattern.referencedIssue("    /* TODO MON-123 tidy up */")).isEmpty();
+        assertThat(todoIssuePattern.referencedIssue("    // MON-123 tidy up")).isEmpty();
+    }
+
+    @Test
+    public void onlyLetsThroughLinesContainingTheRequiredLiterals() throws Exception {
+        assertThat(todoIssuePattern.prefilter().matches("    // todo MON-123")).isTrue();
+        assertThat(todoIssuePattern.prefilter().matches("    // todo 123")).isFalse();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie;
+
+import io.github.tjheslin1.westie.infrastructure.PrefetchingFileReader;
+import io.github.tjheslin1.westie.infrastructure.WestieCachedFileReader;
+import io.github.tjheslin1.westie.infrastructure.WestieFileReader;
+import io.github.tjheslin1.westie.testinfrastructure.TestWestieFileReader;
+import io.github.tjheslin1.westie.todostructure.TodosStructureAnalyser;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static io.github.tjheslin1.westie.WestieRegexes.TODOS_MUST_HAVE_DATE_REGEX;
+import static java.util.stream.Collectors.toList;
+
+public class WestieAnalysisSessionTest implements WithAssertions {
+
+    @Test
+    public void appliesAllRulesReadingEachFileOnce() throws Exception {
+        List<Path> filesRead = new ArrayList<>();
+        TestWestieFileReader testFileReader = new TestWestieFileReader();
+        WestieFileReader countingFileReader = file -> {
+            filesRead.add(file);
+            return testFileReader.readAllLines(file);
+        };
+
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading");
+        List<Violation> violations = new WestieDirectoryAnalyser(pathToCheck, ".java", countingFileReader)
+                .analysisSession()
+                .analyseFile(pathToFile -> true, "Path rule")
+                .analyseFileContent(fileContent -> fileContent.contains("ReadMyLines"), "Content rule")
+                .analyseLinesOfFile(line -> line.contains("println"), "Line rule")
+                .analyse();
+
+        assertThat(violations).hasSize(3);
+        LineAssertions lineAssertions = new LineAssertions(violations);
+        lineAssertions.containsViolationMessage("Violation in file 'ReadMyLines.java'\n" +
+                "Path rule\n");
+        lineAssertions.containsViolationMessage("Violation in file 'ReadMyLines.java'\n" +
+                "Content rule\n");
+        lineAssertions.containsViolationMessage("Violation in file 'ReadMyLines.java'\n" +
+                "\n" +
+                "        System.out.println(\"Hello\");\n" +
+                "\n" +
+                "Line rule\n");
+
+        assertThat(filesRead).containsExactly(pathToCheck.resolve("ReadMyLines.java"));
+    }
+
+    @Test
+    public void streamsLinesOnceForAllLineRulesWithoutReadingWholeFile() throws Exception {
+        List<Path> filesStreamed = new ArrayList<>();
+        TestWestieFileReader testFileReader = new TestWestieFileReader();
+        WestieFileReader streamingFileReader = new WestieFileReader() {
+            @Override
+            public List<String> readAllLines(Path filePath) {
+                throw new AssertionError("Expected lines to be streamed, not read in full.");
+            }
+
+            @Override
+            public Stream<String> lines(Path filePath) throws IOException {
+                filesStreamed.add(filePath);
+                return testFileReader.readAllLines(filePath).stream();
+            }
+        };
+
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading");
+        List<Violation> violations = new WestieDirectoryAnalyser(pathToCheck, ".java", streamingFileReader)
+                .analysisSession()
+                .analyseLinesOfFile(line -> line.contains("public class"), "First line rule")
+                .analyseFile(pathToFile -> true, "Path rule")
+                .analyseLinesOfFile(line -> line.contains("println"), "Second line rule")
+                .analyse();
+
+        assertThat(violations).hasSize(3);
+        assertThat(violations.get(0).toString()).contains("First line rule");
+        assertThat(violations.get(1).toString()).contains("Path rule");
+        assertThat(violations.get(2).toString()).contains("Second line rule");
+        assertThat(filesStreamed).containsExactly(pathToCheck.resolve("ReadMyLines.java"));
+    }
+
+    @Test
+    public void reportsFailurePartWayThroughStreamedFileOnceForAllLineRules() throws Exception {
+        WestieFileReader failingFileReader = new WestieFileReader() {
+            @Override
+            public List<String> readAllLines(Path filePath) {
+                throw new AssertionError("Expected lines to be streamed, not read in full.");
+            }
+
+            @Override
+            public Stream<String> lines(Path filePath) {
+                return Stream.of("// TODO first", "// TODO second").map(line -> {
+                    if (line.contains("second")) {
+                        throw new UncheckedIOException(new IOException("Disk error"));
+                    }
+                    return line;
+                });
+            }
+        };
+
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading");
+        List<Violation> violations = new WestieDirectoryAnalyser(pathToCheck, ".java", failingFileReader)
+                .analysisSession()
+                .analyseLinesOfFile(line -> line.contains("TODO"), "First line rule")
+                .analyseLinesOfFile(line -> line.contains("TODO"), "Second line rule")
+                .analyse();
+
+        assertThat(violations).hasSize(1);
+        assertThat(violations.get(0).toString()).contains("Unable to read file.\njava.io.IOException: Disk error");
+    }
+
+    @Test
+    public void prefetchesFilesAheadOfTheFileBeingAnalysed() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples");
+        List<Violation> violations = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                .analyseLinesOfFile(line -> line.contains("class"), "Expected violation message 1234");
+
+        List<Path> filesPrefetched = new ArrayList<>();
+        try (PrefetchingFileReader prefetchingFileReader = new PrefetchingFileReader(new TestWestieFileReader(), 2, 1024 * 1024, 2) {
+            @Override
+            public void prefetch(Path filePath, BasicFileAttributes attrs) {
+                filesPrefetched.add(filePath);
+                super.prefetch(filePath, attrs);
+            }
+        }) {
+            List<Violation> prefetchedViolations = new WestieDirectoryAnalyser(pathToCheck, ".java", prefetchingFileReader)
+                    .analyseLinesOfFile(line -> line.contains("class"), "Expected violation message 1234");
+
+            assertThat(prefetchedViolations).isNotEmpty();
+            assertThat(prefetchedViolations).containsExactlyElementsOf(violations);
+            assertThat(filesPrefetched).isNotEmpty();
+        }
+    }
+
+    @Test
+    public void reportsFileWithErrorReadingOnceForAllRules() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/special");
+
+        List<Violation> violations = new WestieDirectoryAnalyser(pathToCheck, ".txt", new WestieCachedFileReader())
+                .analysisSession()
+                .analyseLinesOfFile(line -> true, "First line rule")
+                .analyseLinesOfFile(line -> true, "Second line rule")
+                .analyseFileContent(fileContent -> true, "Content rule")
+                .analyse();
+
+        assertThat(violations).hasSize(1);
+        assertThat(violations.get(0).toString()).contains("Unable to read file.\n" +
+                "java.nio.charset.MalformedInputException: Input length = 1");
+    }
+
+    @Test
+    public void registersProvidedAnalysersWithTheSession() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/todos");
+        WestieAnalysisSession analysisSession = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                .analysisSession();
+
+        new TodosStructureAnalyser(TODOS_MUST_HAVE_DATE_REGEX).registerRules(analysisSession);
+        List<Violation> violations = analysisSession
+                .analyseLinesOfFile(line -> line.contains("NO_DATE"), "Line rule")
+                .analyse();
+
+        assertThat(violations).hasSize(5);
+    }
+
+    @Test
+    public void passesViolationsToSinkAsTheyAreFound() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples");
+        WestieDirectoryAnalyser directoryAnalyser = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader());
+
+        List<Violation> expectedViolations = directoryAnalyser.analyseLinesOfFile(line -> line.contains("class"), "Line rule");
+
+        List<Violation> sequentialViolations = new ArrayList<>();
+        directoryAnalyser.analysisSession()
+                .analyseLinesOfFile(line -> line.contains("class"), "Line rule")
+                .analyse(sequentialViolations::add);
+
+        List<Violation> parallelViolations = new ArrayList<>();
+        directoryAnalyser.inParallel(2).analysisSession()
+                .analyseLinesOfFile(line -> line.contains("class"), "Line rule")
+                .analyse(parallelViolations::add);
+
+        assertThat(sequentialViolations).containsExactlyElementsOf(expectedViolations);
+        assertThat(parallelViolations).containsExactlyElementsOf(expectedViolations);
+    }
+
+    @Test
+    public void streamsViolationsThroughBoundedBuffer() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples");
+        WestieDirectoryAnalyser directoryAnalyser = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader());
+
+        List<Violation> expectedViolations = directoryAnalyser.analyseLinesOfFile(line -> line.contains("class"), "Line rule");
+
+        try (Stream<Violation> violations = directoryAnalyser.analysisSession()
+                .analyseLinesOfFile(line -> line.contains("class"), "Line rule")
+                .violations(1)) {
+            assertThat(violations.collect(toList())).containsExactlyElementsOf(expectedViolations);
+        }
+    }
+
+    @Test
+    public void streamRethrowsFailureFromAnalysis() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading");
+
+        Stream<Violation> violations = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                .analysisSession()
+                .analyseLinesOfFile(line -> {
+                    throw new IllegalStateException("Rule failed");
+                }, "Line rule")
+                .violations(10);
+
+        assertThatThrownBy(() -> violations.collect(toList()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Rule failed");
+    }
+}
@@ -1,20 +1,37 @@
 package io.github.tjheslin1.westie;
 
 import io.github.tjheslin1.westie.importrestrictions.ImportsRestrictionAnalyser;
+import io.github.tjheslin1.westie.infrastructure.CachedFileReaderStats;
+import io.github.tjheslin1.westie.infrastructure.FileContent;
 import io.github.tjheslin1.westie.infrastructure.FileLinesReader;
 import io.github.tjheslin1.westie.infrastructure.WestieCachedFileReader;
+import io.github.tjheslin1.westie.infrastructure.WestieCachedFileReaderBuilder;
 import io.github.tjheslin1.westie.todostructure.TodosStructureAnalyser;
 import org.assertj.core.api.WithAssertions;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 
 public class WestieCachedFileReaderTest implements WithAssertions, WithMockito {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private FileLinesReader fileLinesReader = mock(FileLinesReader.class);
 
     @Test
@@ -41,6 +58,147 @@ public class WestieCachedFileReaderTest implements WithAssertions, WithMockito {
         verifyNoMoreInteractions(fileLinesReader);
     }
 
+    @Test
+    public void readsContentFromCacheWithoutReadingFileAgain() throws Exception {
+        when(fileLinesReader.readAllLines(any())).thenReturn(asList("first", "second"));
+
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading/ReadMyLines.java");
+
+        WestieCachedFileReader fileReader = new WestieCachedFileReader(fileLinesReader);
+        FileContent fileContent = fileReader.readContent(pathToCheck);
+
+        assertThat(fileReader.readContent(pathToCheck).content()).isEqualTo(fileContent.content());
+        assertThat(fileReader.readAllLines(pathToCheck)).containsExactly("first", "second");
+        verify(fileLinesReader).readAllLines(pathToCheck);
+        verifyNoMoreInteractions(fileLinesReader);
+    }
+
+    @Test
+    public void sharesTheDecodedContentBetweenReadsOfACachedFile() throws Exception {
+        when(fileLinesReader.readAllLines(any())).thenReturn(asList("first", "second"));
+
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading/ReadMyLines.java");
+
+        WestieCachedFileReader fileReader = new WestieCachedFileReader(fileLinesReader);
+        FileContent fileContent = fileReader.readContent(pathToCheck);
+        String content = fileContent.content();
+        String firstLine = fileContent.lines().get(0);
+
+        assertThat(fileReader.readContent(pathToCheck)).isSameAs(fileContent);
+        assertThat(fileReader.readContent(pathToCheck).content()).isSameAs(content);
+        assertThat(fileReader.readAllLines(pathToCheck).get(0)).isSameAs(firstLine);
+    }
+
+    @Test
+    public void evictsFilesOnceMaximumWeightIsExceeded() throws Exception {
+        when(fileLinesReader.readAllLines(any())).thenReturn(asList("first", "second"));
+
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading/ReadMyLines.java");
+
+        WestieCachedFileReader fileReader = new WestieCachedFileReaderBuilder()
+                .withFileLinesReader(fileLinesReader)
+                .withMaximumWeightBytes(FileContent.fromLines(asList("first", "second")).weightInBytes() - 1)
+                .build();
+        fileReader.readAllLines(pathToCheck);
+        fileReader.readAllLines(pathToCheck);
+
+        verify(fileLinesReader, times(2)).readAllLines(pathToCheck);
+    }
+
+    @Test
+    public void keepsFilesWithinMaximumWeightInSoftValueMode() throws Exception {
+        when(fileLinesReader.readAllLines(any())).thenReturn(asList("first", "second"));
+
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading/ReadMyLines.java");
+
+        WestieCachedFileReader fileReader = new WestieCachedFileReaderBuilder()
+                .withFileLinesReader(fileLinesReader)
+                .withSoftValues()
+                .build();
+        fileReader.readAllLines(pathToCheck);
+        fileReader.readAllLines(pathToCheck);
+
+        verify(fileLinesReader).readAllLines(pathToCheck);
+    }
+
+    @Test
+    public void readsCachedContentHeldOffHeap() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading/ReadMyLines.java");
+
+        WestieCachedFileReader fileReader = new WestieCachedFileReaderBuilder()
+                .withOffHeapStorage()
+                .build();
+
+        assertThat(fileReader.readAllLines(pathToCheck)).isEqualTo(new FileLinesReader().readAllLines(pathToCheck));
+        assertThat(fileReader.readAllLines(pathToCheck)).isEqualTo(new FileLinesReader().readAllLines(pathToCheck));
+    }
+
+    @Test
+    public void streamsFilesAboveThresholdWithoutCachingThem() throws Exception {
+        when(fileLinesReader.lines(any())).thenAnswer(invocation -> Stream.of("streamed"));
+        when(fileLinesReader.readAllLines(any())).thenReturn(singletonList("read"));
+
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading/ReadMyLines.java");
+
+        WestieCachedFileReader fileReader = new WestieCachedFileReader(fileLinesReader, 10);
+        assertThat(fileReader.lines(pathToCheck)).containsExactly("streamed");
+        assertThat(fileReader.lines(pathToCheck)).containsExactly("streamed");
+        assertThat(fileReader.readAllLines(pathToCheck)).containsExactly("read");
+        assertThat(fileReader.readAllLines(pathToCheck)).containsExactly("read");
+
+        verify(fileLinesReader, times(2)).lines(pathToCheck);
+        verify(fileLinesReader, times(2)).readAllLines(pathToCheck);
+    }
+
+    @Test
+    public void readsFileAgainOnlyWhenItsLastModifiedTimeOrSizeChanges() throws Exception {
+        List<Path> filesRead = new ArrayList<>();
+        FileLinesReader countingLinesReader = new FileLinesReader() {
+            @Override
+            public List<String> readAllLines(Path filePath) throws IOException {
+                filesRead.add(filePath);
+                return super.readAllLines(filePath);
+            }
+        };
+        Path file = Files.write(temporaryFolder.newFile("Edited.java").toPath(), singletonList("// TODO before"));
+
+        WestieCachedFileReader fileReader = new WestieCachedFileReader(countingLinesReader);
+        assertThat(fileReader.readAllLines(file)).containsExactly("// TODO before");
+        assertThat(fileReader.readAllLines(file)).containsExactly("// TODO before");
+
+        Files.write(file, singletonList("// TODO after edit"));
+        assertThat(fileReader.readAllLines(file)).containsExactly("// TODO after edit");
+
+        Files.write(file, singletonList("// TODO same size"));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+        assertThat(fileReader.readAllLines(file)).containsExactly("// TODO same size");
+
+        assertThat(filesRead).containsExactly(file, file, file);
+    }
+
+    @Test
+    public void reportsHitsLoadsAndBytesHeld() throws Exception {
+        Path file = Files.write(temporaryFolder.newFile("Counted.java").toPath(), singletonList("// TODO count me"));
+
+        WestieCachedFileReader fileReader = new WestieCachedFileReaderBuilder().withStreamingThresholdBytes(1024).build();
+        fileReader.readAllLines(file);
+        fileReader.readAllLines(file);
+        fileReader.readContent(file);
+        Files.write(file, singletonList("// TODO count me again"));
+        fileReader.readAllLines(file);
+        Files.write(file, Collections.nCopies(100, "// TODO count me"));
+        fileReader.readAllLines(file);
+
+        CachedFileReaderStats stats = fileReader.stats();
+        assertThat(stats.hitCount).isEqualTo(2);
+        assertThat(stats.loadCount).isEqualTo(2);
+        assertThat(stats.staleReloadCount).isEqualTo(1);
+        assertThat(stats.uncachedLargeFileReadCount).isEqualTo(1);
+        assertThat(stats.cachedFileCount).isEqualTo(1);
+        assertThat(stats.cachedBytes).isEqualTo(FileContent.fromLines(singletonList("// TODO count me again")).weightInBytes());
+        assertThat(stats.report()).startsWith("Westie file cache: 50.0% hit rate (2 hits, 2 loads, 0 failed loads, 1 stale reloads)");
+    }
+
     @Test
     public void reusesCacheBetweenAnalysers() throws Exception {
         when(fileLinesReader.readAllLines(any())).thenReturn(emptyList());
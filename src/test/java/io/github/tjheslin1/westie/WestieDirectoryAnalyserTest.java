@@ -8,6 +8,8 @@ import org.junit.Test;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class WestieDirectoryAnalyserTest implements WithAssertions {
 
@@ -91,6 +93,17 @@ public class WestieDirectoryAnalyserTest implements WithAssertions {
         assertThat(violations.get(0).toString()).contains("Violation in file 'hidden.txt'");
     }
 
+    @Test
+    public void ignoreHiddenDirectoriesNestedUnderHiddenTopLevel() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/.hidden");
+        WestieDirectoryAnalyser westieDirectoryAnalyser = new WestieDirectoryAnalyser(pathToCheck, ".txt", new TestWestieFileReader());
+
+        List<Violation> violations = westieDirectoryAnalyser.analyseFile(pathToFile -> true, "Expected violation message 1234");
+
+        assertThat(violations).hasSize(1);
+        assertThat(violations.get(0).toString()).contains("Violation in file 'hidden.txt'");
+    }
+
     @Test
     public void ignoreHiddenDirectoriesAsPartOfAnalysis() throws Exception {
         Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/nothidden");
@@ -113,4 +126,109 @@ public class WestieDirectoryAnalyserTest implements WithAssertions {
         assertThat(violations.get(0).toString()).contains("Unable to read file.\n" +
                 "java.nio.charset.MalformedInputException: Input length = 1");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void memoryMappedScanFindsTheSameViolationsAsReadingFiles() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples");
+
+        List<Violation> readViolations = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                .analysisSession()
+                .analyseLinesOfFile(LinePrefilter.containing("class"), line -> line.contains("class"), "Expected violation message 1234")
+                .analyse();
+        List<Violation> scannedViolations = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                .usingMemoryMappedScan()
+                .analysisSession()
+                .analyseLinesOfFile(LinePrefilter.containing("class"), line -> line.contains("class"), "Expected violation message 1234")
+                .analyse();
+
+        assertThat(scannedViolations).isNotEmpty();
+        assertThat(scannedViolations).containsExactlyElementsOf(readViolations);
+    }
+
+    @Test
+    public void analysesFilesInParallelInTheSameOrderAsSequentially() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples");
+
+        List<Violation> sequentialViolations = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                .analyseLinesOfFile(line -> line.contains("class"), "Expected violation message 1234");
+        List<Violation> parallelViolations = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                .inParallel(4)
+                .analyseLinesOfFile(line -> line.contains("class"), "Expected violation message 1234");
+
+        assertThat(parallelViolations).isNotEmpty();
+        assertThat(parallelViolations).containsExactlyElementsOf(sequentialViolations);
+    }
+
+    @Test
+    public void analysesFilesOnProvidedExecutor() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading");
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        try {
+            List<Violation> violations = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                    .usingExecutor(executorService)
+                    .analyseLinesOfFile(pathToFile -> true, "Expected violation message 1234");
+
+            assertThat(violations).hasSize(12);
+            assertThat(executorService.isShutdown()).isFalse();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void analysesFilesOnProvidedExecutorWithProvidedParallelism() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading");
+        ExecutorService executorService = Executors.newCachedThreadPool();
+
+        try {
+            List<Violation> violations = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                    .usingExecutor(executorService, 1)
+                    .analyseLinesOfFile(pathToFile -> true, "Expected violation message 1234");
+
+            assertThat(violations).hasSize(12);
+            assertThatThrownBy(() -> new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                    .usingExecutor(executorService, 0))
+                    .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void excludesDirectoriesMatchingGlob() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/thirdparties");
+        WestieDirectoryAnalyser westieDirectoryAnalyser = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                .excluding("**/toignore/**");
+
+        List<Violation> violations = westieDirectoryAnalyser.analyseFile(pathToFile -> true, "Expected violation message 1234");
+
+        assertThat(violations).hasSize(1);
+        assertThat(violations.get(0).toString()).contains("Violation in file 'ClassWithUnacceptedThirdPartyImport.java'");
+    }
+
+    @Test
+    public void excludesFilesMatchingFileNameGlob() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/katacalisthenics");
+        WestieDirectoryAnalyser westieDirectoryAnalyser = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                .excluding("*Else*.java", "regex:.*Multiple.*");
+
+        List<Violation> violations = westieDirectoryAnalyser.analyseFile(pathToFile -> true, "Expected violation message 1234");
+
+        assertThat(violations).hasSize(1);
+        assertThat(violations.get(0).toString()).contains("Violation in file 'ClassWithSingleLevelOfIndentation.java'");
+    }
+
+    @Test
+    public void onlyAnalysesIncludedFiles() throws Exception {
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/katacalisthenics");
+        WestieDirectoryAnalyser westieDirectoryAnalyser = new WestieDirectoryAnalyser(pathToCheck, ".java", new TestWestieFileReader())
+                .including("**/nested/*.java")
+                .excluding("*Commented*");
+
+        List<Violation> violations = westieDirectoryAnalyser.analyseFile(pathToFile -> true, "Expected violation message 1234");
+
+        assertThat(violations).hasSize(1);
+        assertThat(violations.get(0).toString()).contains("Violation in file 'ClassWithSingleLevelOfIndentation.java'");
+    }
+}
@@ -2,6 +2,7 @@ package io.github.tjheslin1.westie;
 
 import org.mockito.Mockito;
 import org.mockito.stubbing.OngoingStubbing;
+import org.mockito.verification.VerificationMode;
 
 public interface WithMockito {
 
@@ -21,6 +22,14 @@ public interface WithMockito {
         return Mockito.verify(mock);
     }
 
+    default <T> T verify(T mock, VerificationMode mode) {
+        return Mockito.verify(mock, mode);
+    }
+
+    default VerificationMode times(int wantedNumberOfInvocations) {
+        return Mockito.times(wantedNumberOfInvocations);
+    }
+
     default void verifyNoMoreInteractions(Object... mocks) {
         Mockito.verifyNoMoreInteractions(mocks);
     }
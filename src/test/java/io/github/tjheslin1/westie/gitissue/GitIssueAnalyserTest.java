@@ -13,6 +13,7 @@ import java.nio.file.Paths;
 import java.util.List;
 
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 
 public class GitIssueAnalyserTest implements WithAssertions, WithMockito {
 
@@ -20,6 +21,7 @@ public class GitIssueAnalyserTest implements WithAssertions, WithMockito {
 
     @Test
     public void checksGitIssueIsInOpenState() throws Exception {
+        when(gitIssues.isGitIssueOpenAsync(any())).thenReturn(completedFuture(false));
         GitIssueAnalyser gitIssueAnalyser = new GitIssueAnalyser(gitIssues, "Git-[0-9]{1,4}", new TestWestieFileReader());
 
         Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/git");
@@ -51,6 +53,7 @@ public class GitIssueAnalyserTest implements WithAssertions, WithMockito {
 
     @Test
     public void ignoresExcludedFiles() throws Exception {
+        when(gitIssues.isGitIssueOpenAsync(any())).thenReturn(completedFuture(false));
         GitIssueAnalyser gitIssueAnalyser = new GitIssueAnalyser(gitIssues, "Git-[0-9]{1,4}", new TestWestieFileReader());
 
         Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/git");
@@ -69,4 +72,17 @@ public class GitIssueAnalyserTest implements WithAssertions, WithMockito {
                 "\n" +
                 "Violation was caused by a reference to a Git issue which is not in the open state.\n");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findsTheSameViolationsWithAMemoryMappedScan() throws Exception {
+        when(gitIssues.isGitIssueOpenAsync(any())).thenReturn(completedFuture(false));
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/git");
+
+        List<Violation> violations = new GitIssueAnalyser(gitIssues, "Git-[0-9]{1,4}")
+                .usingMemoryMappedScan()
+                .todosAreInOpenState(pathToCheck);
+
+        assertThat(violations).isEqualTo(new GitIssueAnalyser(gitIssues, "Git-[0-9]{1,4}").todosAreInOpenState(pathToCheck));
+        assertThat(violations).hasSize(4);
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.tjheslin1.westie.importrestrictions;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import static io.github.tjheslin1.westie.importrestrictions.ImportRestriction.importRestriction;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+public class ImportRestrictionMatcherTest implements WithAssertions {
+
+    @Test
+    public void appliesTheFirstRestrictionWhichMatchesTheImport() throws Exception {
+        ImportRestrictionMatcher importRestrictions = new ImportRestrictionMatcher(asList(
+                importRestriction("com.example.database", "import oracle\\.jdbc\\..*;"),
+                importRestriction("com.example.mocks", "import (org\\.mockito)\\.(Mockito);"),
+                importRestriction("com.example.anything", "import .*;")));
+
+        assertThat(importRestrictions.firstMatchingRestriction("import oracle.jdbc.OracleDriver;")).isEqualTo(0);
+        assertThat(importRestrictions.firstMatchingRestriction("import org.mockito.Mockito;")).isEqualTo(1);
+        assertThat(importRestrictions.firstMatchingRestriction("import java.util.List;")).isEqualTo(2);
+        assertThat(importRestrictions.firstMatchingRestriction("package com.example;")).isEqualTo(-1);
+    }
+
+    @Test
+    public void acceptsImportsUsedUnderTheirPackage() throws Exception {
+        ImportRestrictionMatcher importRestrictions = new ImportRestrictionMatcher(asList(
+                importRestriction("com.example.database", "import oracle\\.jdbc\\..*;"),
+                importRestriction("com.example", "import org\\.mockito\\..*;")));
+
+        assertThat(importRestrictions.usedOutsideOfAcceptedPackage("package com.example.database.dao;", "import oracle.jdbc.OracleDriver;")).isFalse();
+        assertThat(importRestrictions.usedOutsideOfAcceptedPackage("package com.example.web;", "import oracle.jdbc.OracleDriver;")).isTrue();
+        assertThat(importRestrictions.usedOutsideOfAcceptedPackage("package com.example.web;", "import org.mockito.Mockito;")).isFalse();
+        assertThat(importRestrictions.usedOutsideOfAcceptedPackage("package org.example;", "import java.util.List;")).isFalse();
+    }
+
+    @Test
+    public void matchesRegexesWithBackReferencesInTurn() throws Exception {
+        ImportRestrictionMatcher importRestrictions = new ImportRestrictionMatcher(asList(
+                importRestriction("com.example.twice", "import (\\w+)\\.\\1;"),
+                importRestriction("com.example.once", "import (\\w+)\\.(\\w+);")));
+
+        assertThat(importRestrictions.firstMatchingRestriction("import foo.foo;")).isEqualTo(0);
+        assertThat(importRestrictions.firstMatchingRestriction("import foo.bar;")).isEqualTo(1);
+    }
+
+    @Test
+    public void matchesNothingWithoutRestrictions() throws Exception {
+        assertThat(new ImportRestrictionMatcher(emptyList()).firstMatchingRestriction("")).isEqualTo(-1);
+    }
+}
@@ -3,10 +3,14 @@ package io.github.tjheslin1.westie.importrestrictions;
 import io.github.tjheslin1.westie.FileViolation;
 import io.github.tjheslin1.westie.LineAssertions;
 import io.github.tjheslin1.westie.Violation;
+import io.github.tjheslin1.westie.WestieAnalyser;
 import io.github.tjheslin1.westie.testinfrastructure.TestWestieFileReader;
 import org.assertj.core.api.WithAssertions;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
@@ -23,6 +27,9 @@ public class ImportsRestrictionAnalyserTest implements WithAssertions {
     private static final ImportRestriction APACHE_RESTRICITON
             = importRestriction("io.github.tjheslin1.examples.apache", "import org.apache.commons.lang3.builder.HashCodeBuilder;");
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void enforcesOnlySpecifiedPackagesCanUseCertainThirdPartyImports() throws Exception {
         List<ImportRestriction> importRestrictions = singletonList(MOCKITO_RESTRICTION);
@@ -68,4 +75,28 @@ public class ImportsRestrictionAnalyserTest implements WithAssertions {
                 "\n" +
                 "Violation was caused by the above import which was used outside of its accepted package.\n");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void checksEachFileAgainstItsOwnPackage() throws Exception {
+        Path pathToCheck = temporaryFolder.getRoot().toPath();
+        for (String name : asList("A", "B", "C", "D")) {
+            Files.write(pathToCheck.resolve("Accepted" + name + ".java"),
+                    asList("package io.github.tjheslin1.examples.mockito;", "", "import org.mockito.Mockito;"));
+            Files.write(pathToCheck.resolve("Unaccepted" + name + ".java"),
+                    asList("package io.github.tjheslin1.examples;", "", "import org.mockito.Mockito;"));
+        }
+        ImportsRestrictionAnalyser importsRestrictionAnalyser
+                = new ImportsRestrictionAnalyser(singletonList(MOCKITO_RESTRICTION), new TestWestieFileReader());
+
+        List<Violation> violations = importsRestrictionAnalyser.registerRules(
+                new WestieAnalyser(new TestWestieFileReader()).analyseDirectory(pathToCheck)
+                        .forJavaFiles()
+                        .inParallel(4)
+                        .analysisSession())
+                .analyse();
+
+        assertThat(violations).hasSize(4);
+        assertThat(violations).allMatch(violation -> violation.toString().contains("Unaccepted"));
+        assertThat(importsRestrictionAnalyser.checkImportsAreOnlyUsedInAcceptedPackages(pathToCheck)).isEqualTo(violations);
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.tjheslin1.westie.infrastructure;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import io.github.tjheslin1.westie.http.RequestBuilder;
+import io.github.tjheslin1.westie.http.Response;
+import org.assertj.core.api.WithAssertions;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+public class ApacheAsyncHttpClientTest implements WithAssertions {
+
+    private final ApacheAsyncHttpClient httpClient = new ApacheAsyncHttpClient(2, 50, 50);
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(8089);
+
+    @After
+    public void closeHttpClient() throws Exception {
+        httpClient.close();
+    }
+
+    @Test
+    public void keepsManyRequestsInFlightOnAFewThreads() throws Exception {
+        stubFor(get(urlPathMatching("/issues/.*"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withFixedDelay(200)
+                        .withBody("{\"state\": \"open\"}")));
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Response>> responses = new ArrayList<>();
+        for (int issue = 0; issue < 40; issue++) {
+            responses.add(httpClient.executeAsync(new RequestBuilder().get()
+                    .url("http://localhost:8089/issues/" + issue)
+                    .build()));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0])).get();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        for (CompletableFuture<Response> response : responses) {
+            assertThat(response.get().statusCode).isEqualTo(200);
+            assertThat(response.get().body).isEqualTo("{\"state\": \"open\"}");
+        }
+        assertThat(elapsedMillis).isLessThan(40 * 200 / 2);
+        verify(40, getRequestedFor(urlPathMatching("/issues/.*")));
+    }
+
+    @Test
+    public void executesBlockingRequests() throws Exception {
+        stubFor(get(urlEqualTo("/issues/1"))
+                .willReturn(aResponse().withStatus(404).withBody("Not Found")));
+
+        Response response = httpClient.execute(new RequestBuilder().get().url("http://localhost:8089/issues/1").build());
+
+        assertThat(response.statusCode).isEqualTo(404);
+        assertThat(response.isSuccessful()).isFalse();
+    }
+
+    @Test
+    public void timesOutRequestsToAStalledHost() throws Exception {
+        stubFor(get(urlEqualTo("/issues/1"))
+                .willReturn(aResponse().withStatus(200).withFixedDelay(2000)));
+
+        try (ApacheAsyncHttpClient timingOutHttpClient = new ApacheAsyncHttpClient(1, 1, 1, Duration.ofMillis(200))) {
+            Throwable timeout = catchThrowable(() -> timingOutHttpClient.execute(new RequestBuilder().get().url("http://localhost:8089/issues/1").build()));
+
+            assertThat(timeout).isInstanceOf(SocketTimeoutException.class);
+            assertThat(String.valueOf(timeout.getMessage())).doesNotContain("No response to");
+        }
+    }
+
+    @Test
+    public void completesExceptionallyWhenTheRequestFails() throws Exception {
+        CompletableFuture<Response> response = httpClient.executeAsync(new RequestBuilder().get()
+                .url("http://localhost:1/issues/1")
+                .build());
+
+        assertThatThrownBy(response::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ConnectException.class);
+    }
+}
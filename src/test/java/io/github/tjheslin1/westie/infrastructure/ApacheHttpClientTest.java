@@ -0,0 +1,59 @@
+package io.github.tjheslin1.westie.infrastructure;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import io.github.tjheslin1.westie.http.RequestBuilder;
+import io.github.tjheslin1.westie.http.Response;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+
+public class ApacheHttpClientTest implements WithAssertions {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(8089);
+
+    @Test
+    public void poolsAsManyConnectionsToAHostAsConfigured() throws Exception {
+        stubFor(get(urlPathMatching("/issues/.*"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withFixedDelay(300)
+                        .withBody("{\"state\": \"open\"}")));
+        ApacheHttpClient httpClient = new ApacheHttpClient(Duration.ofSeconds(10), 4, 4);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        try {
+            httpClient.execute(new RequestBuilder().get().url("http://localhost:8089/issues/warm-up").build());
+
+            long start = System.nanoTime();
+            List<Future<Response>> responses = new ArrayList<>();
+            for (int issue = 0; issue < 4; issue++) {
+                String url = "http://localhost:8089/issues/" + issue;
+                responses.add(executorService.submit(() -> httpClient.execute(new RequestBuilder().get().url(url).build())));
+            }
+            for (Future<Response> response : responses) {
+                assertThat(response.get().statusCode).isEqualTo(200);
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertThat(elapsedMillis).isLessThan(2 * 300);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectsFewerConnectionsInTotalThanPerHost() throws Exception {
+        assertThatThrownBy(() -> new ApacheHttpClient(Duration.ofSeconds(10), 4, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import org.assertj.core.api.WithAssertions;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+public class FileContentTest implements WithAssertions {
+
+    private static final String SEPARATOR = System.lineSeparator();
+
+    @Test
+    public void joinsLinesWithLineSeparator() throws Exception {
+        FileContent fileContent = FileContent.fromLines(asList("package example;", "", "class Example {}"));
+
+        assertThat(fileContent.content()).isEqualTo("package example;" + SEPARATOR + SEPARATOR + "class Example {}");
+        assertThat(fileContent.content()).isSameAs(fileContent.content());
+    }
+
+    @Test
+    public void derivesLinesFromContent() throws Exception {
+        FileContent fileContent = FileContent.fromLines(asList("package example;", "", "class Example {}", ""));
+
+        assertThat(fileContent.lines()).containsExactly("package example;", "", "class Example {}", "");
+        assertThat(fileContent.lineCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void distinguishesEmptyFileFromSingleEmptyLine() throws Exception {
+        assertThat(FileContent.fromLines(emptyList()).isEmpty()).isTrue();
+        assertThat(FileContent.fromLines(emptyList()).lines()).isEmpty();
+
+        FileContent singleEmptyLine = FileContent.fromLines(singletonList(""));
+        assertThat(singleEmptyLine.isEmpty()).isFalse();
+        assertThat(singleEmptyLine.lines()).containsExactly("");
+    }
+
+    @Test
+    public void storesLatin1FilesWithOneBytePerCharacter() throws Exception {
+        FileContent asciiContent = FileContent.fromLines(asList("0123456789", "0123456789"));
+        FileContent wideContent = FileContent.fromLines(asList("0123456789", "\u20ac123456789"));
+
+        assertThat(wideContent.weightInBytes() - asciiContent.weightInBytes()).isEqualTo(2);
+    }
+
+    @Test
+    public void keepsCharactersOutsideLatin1() throws Exception {
+        FileContent fileContent = FileContent.fromLines(asList("caf\u00e9", "\u20ac10 \uD83D\uDC36", "end"));
+
+        assertThat(fileContent.lines()).containsExactly("caf\u00e9", "\u20ac10 \uD83D\uDC36", "end");
+        assertThat(fileContent.content()).isEqualTo("caf\u00e9" + SEPARATOR + "\u20ac10 \uD83D\uDC36" + SEPARATOR + "end");
+    }
+
+    @Test
+    public void readsLinesAndContentHeldOffHeap() throws Exception {
+        FileContent fileContent = new FileContent(CompactFileContent.fromLines(asList("caf\u00e9", "\u20ac10", "")).offHeap());
+
+        assertThat(fileContent.lines()).containsExactly("caf\u00e9", "\u20ac10", "");
+        assertThat(fileContent.content()).isEqualTo("caf\u00e9" + SEPARATOR + "\u20ac10" + SEPARATOR);
+    }
+}
@@ -1,16 +1,26 @@
 package io.github.tjheslin1.westie.infrastructure;
 
 import org.assertj.core.api.WithAssertions;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.nio.charset.MalformedInputException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.stream.Stream;
 
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
 import static java.util.Arrays.asList;
 
 public class FileLinesReaderTest implements WithAssertions {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void readsAllLines() throws Exception {
         WestieCachedFileReader fileReader = new WestieCachedFileReader(new FileLinesReader());
@@ -20,6 +30,80 @@ public class FileLinesReaderTest implements WithAssertions {
         assertThat(lines).isEqualTo(READ_MY_LINES_FILE);
     }
 
+    @Test
+    public void splitsAsciiLinesOnAnyLineTerminator() throws Exception {
+        Path file = temporaryFolder.newFile("Mixed.java").toPath();
+        Files.write(file, "first\r\nsecond\rthird\n\nfifth".getBytes(ISO_8859_1));
+
+        assertThat(new FileLinesReader().readAllLines(file))
+                .containsExactly("first", "second", "third", "", "fifth");
+    }
+
+    @Test
+    public void failsOnMalformedInputWithoutAFallbackCharset() throws Exception {
+        Path file = temporaryFolder.newFile("Legacy.java").toPath();
+        Files.write(file, "// caf\u00e9".getBytes(ISO_8859_1));
+
+        assertThatThrownBy(() -> new FileLinesReader().readAllLines(file))
+                .isInstanceOf(MalformedInputException.class);
+    }
+
+    @Test
+    public void decodesMalformedInputWithTheFirstFallbackCharsetWhichCan() throws Exception {
+        Path file = temporaryFolder.newFile("Legacy.java").toPath();
+        Files.write(file, "// caf\u00e9".getBytes(ISO_8859_1));
+
+        List<String> lines = new FileLinesReader().withFallbackCharsets(ISO_8859_1).readAllLines(file);
+
+        assertThat(lines).containsExactly("// caf\u00e9");
+    }
+
+    @Test
+    public void decodesFilesMatchingAGlobWithTheirConfiguredCharset() throws Exception {
+        Path file = temporaryFolder.newFile("messages.properties").toPath();
+        Files.write(file, "greeting=ol\u00e1".getBytes(ISO_8859_1));
+
+        List<String> lines = new FileLinesReader().withCharset("*.properties", ISO_8859_1).readAllLines(file);
+
+        assertThat(lines).containsExactly("greeting=ol\u00e1");
+    }
+
+    @Test
+    public void honoursByteOrderMarks() throws Exception {
+        Path utf8File = temporaryFolder.newFile("Utf8.java").toPath();
+        Files.write(utf8File, new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a', '\n', 'b'});
+        Path utf16File = temporaryFolder.newFile("Utf16.java").toPath();
+        Files.write(utf16File, concat(new byte[]{(byte) 0xFF, (byte) 0xFE}, "a\nb".getBytes(UTF_16LE)));
+
+        assertThat(new FileLinesReader().readAllLines(utf8File)).containsExactly("a", "b");
+        assertThat(new FileLinesReader().readAllLines(utf16File)).containsExactly("a", "b");
+    }
+
+    @Test
+    public void honoursByteOrderMarksWhenStreamingLines() throws Exception {
+        Path utf8File = temporaryFolder.newFile("Utf8.java").toPath();
+        Files.write(utf8File, new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a', '\n', 'b'});
+        Path utf16File = temporaryFolder.newFile("Utf16.java").toPath();
+        Files.write(utf16File, concat(new byte[]{(byte) 0xFF, (byte) 0xFE}, "a\nb".getBytes(UTF_16LE)));
+        Path shortFile = temporaryFolder.newFile("Short.java").toPath();
+        Files.write(shortFile, new byte[]{'a'});
+
+        try (Stream<String> utf8Lines = new FileLinesReader().lines(utf8File);
+             Stream<String> utf16Lines = new FileLinesReader().lines(utf16File);
+             Stream<String> shortLines = new FileLinesReader().lines(shortFile)) {
+            assertThat(utf8Lines).containsExactly("a", "b");
+            assertThat(utf16Lines).containsExactly("a", "b");
+            assertThat(shortLines).containsExactly("a");
+        }
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] bytes = new byte[first.length + second.length];
+        System.arraycopy(first, 0, bytes, 0, first.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
     private static final List<String> READ_MY_LINES_FILE = asList(
             "package io.github.tjheslin1.examples",
             "",
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import io.github.tjheslin1.westie.Violation;
+import io.github.tjheslin1.westie.WestieAnalyser;
+import io.github.tjheslin1.westie.WestieDirectoryAnalyser;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+public class GitChangedFilesTest implements WithAssertions {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path repository;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = temporaryFolder.getRoot().toPath();
+        git("init", "-q");
+        git("config", "user.email", "westie@example.com");
+        git("config", "user.name", "Westie");
+
+        Files.write(repository.resolve(".gitignore"), singletonList("*.log"));
+        Files.createDirectories(repository.resolve("src"));
+        Files.write(repository.resolve("src/Unchanged.java"), singletonList("// TODO unchanged"));
+        Files.write(repository.resolve("src/Modified.java"), singletonList("public class Modified {}"));
+        Files.write(repository.resolve("src/Deleted.java"), singletonList("public class Deleted {}"));
+        git("add", "-A");
+        git("commit", "-q", "-m", "base");
+    }
+
+    @Test
+    public void reportsModifiedAndUntrackedFilesButNotDeletedOrIgnoredFiles() throws Exception {
+        Files.write(repository.resolve("src/Modified.java"), singletonList("// TODO modified"));
+        Files.write(repository.resolve("src/Untracked.java"), singletonList("// TODO untracked"));
+        Files.write(repository.resolve("src/ignored.log"), singletonList("// TODO ignored"));
+        Files.delete(repository.resolve("src/Deleted.java"));
+
+        assertThat(new GitChangedFiles(repository.resolve("src")).changedSince("HEAD")).containsExactly(
+                repository.resolve("src/Modified.java").toRealPath(),
+                repository.resolve("src/Untracked.java").toRealPath());
+    }
+
+    @Test
+    public void analysesOnlyChangedFilesUnderTheDirectory() throws Exception {
+        Files.write(repository.resolve("src/Modified.java"), singletonList("// TODO modified"));
+        Files.write(repository.resolve("Outside.java"), singletonList("// TODO outside"));
+
+        List<Violation> violations = new WestieAnalyser().analyseDirectory(repository.resolve("src"))
+                .forJavaFiles()
+                .onlyChangedSince("HEAD")
+                .analyseLinesOfFile(line -> line.contains("TODO"), "Found a TODO");
+
+        assertThat(violations).hasSize(1);
+        assertThat(violations.get(0).toString()).contains("Modified.java");
+    }
+
+    @Test
+    public void keepsTheCachedViolationsOfFilesLeftOutOfAChangedOnlyRun() throws Exception {
+        Path sourceDirectory = repository.resolve("src").toRealPath();
+        Path cacheFile = repository.resolve("build/westie-cache.json");
+        List<Path> filesRead = new ArrayList<>();
+        WestieFileReader countingFileReader = file -> {
+            filesRead.add(file);
+            return Files.readAllLines(file);
+        };
+
+        cachingAnalyser(sourceDirectory, cacheFile, countingFileReader)
+                .analyseLinesOfFile(line -> line.contains("TODO"), "Found a TODO");
+        Files.write(repository.resolve("src/Modified.java"), singletonList("// TODO modified"));
+        cachingAnalyser(sourceDirectory, cacheFile, countingFileReader)
+                .onlyChangedSince("HEAD")
+                .analyseLinesOfFile(line -> line.contains("TODO"), "Found a TODO");
+        filesRead.clear();
+
+        List<Violation> violations = cachingAnalyser(sourceDirectory, cacheFile, countingFileReader)
+                .analyseLinesOfFile(line -> line.contains("TODO"), "Found a TODO");
+
+        assertThat(violations).hasSize(2);
+        assertThat(filesRead).isEmpty();
+    }
+
+    @Test
+    public void failsWhenTheBaseRefDoesNotExist() {
+        assertThatThrownBy(() -> new GitChangedFiles(repository).changedSince("no-such-ref"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("no-such-ref");
+    }
+
+    private WestieDirectoryAnalyser cachingAnalyser(Path sourceDirectory, Path cacheFile, WestieFileReader fileReader) {
+        return new WestieDirectoryAnalyser(sourceDirectory, ".java", fileReader).cachingViolationsIn(cacheFile, "1");
+    }
+
+    private void git(String... arguments) throws Exception {
+        List<String> command = new ArrayList<>(asList("git", "-C", repository.toString()));
+        command.addAll(asList(arguments));
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        assertThat(process.waitFor()).isZero();
+    }
+}
@@ -5,17 +5,23 @@ import com.github.tomakehurst.wiremock.matching.UrlPattern;
 import org.assertj.core.api.WithAssertions;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 
 public class GitIssuesTest implements WithAssertions {
 
     private static final String WIREMOCK_URL_FORMAT = "/repos/%s/%s/issues/%s";
     private static final String TEST_USER = "testUser";
     private static final String TEST_REPO = "testRepo";
+    private static final String LIST_URL_PATH = "/repos/testUser/testRepo/issues";
 
     private final ApacheHttpClient httpClient = new ApacheHttpClient(Duration.ofSeconds(5));
     private final GitIssues gitIssues = new GitIssues(TEST_USER, TEST_REPO, "http://localhost:8089", httpClient);
@@ -23,6 +29,9 @@ public class GitIssuesTest implements WithAssertions {
     @Rule
     public WireMockRule wireMockRule = new WireMockRule(8089);
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void requestStatusFromGitOncePerIssueNumber() throws Exception {
         String gitIssue = "100";
@@ -49,4 +58,96 @@ public class GitIssuesTest implements WithAssertions {
 
         verify(1, getRequestedFor(urlPattern));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void listsTheStatesOfAllIssuesAPageAtATimeInBulkMode() throws Exception {
+        stubFor(get(urlPathEqualTo(LIST_URL_PATH))
+                .withQueryParam("state", equalTo("all"))
+                .withQueryParam("per_page", equalTo("100"))
+                .willReturn(aResponse().withStatus(200).withBody(issuesPage(1, 50))
+                        .withHeader("Link", "<http://localhost:8089" + LIST_URL_PATH + "?state=all&per_page=100&page=2>; rel=\"next\", " +
+                                "<http://localhost:8089" + LIST_URL_PATH + "?state=all&per_page=100&page=2>; rel=\"last\"")));
+        stubFor(get(urlPathEqualTo(LIST_URL_PATH))
+                .withQueryParam("page", equalTo("2"))
+                .willReturn(aResponse().withStatus(200).withBody(issuesPage(51, 150))
+                        .withHeader("Link", "<http://localhost:8089" + LIST_URL_PATH + "?state=all&per_page=100&page=1>; rel=\"first\"")));
+
+        gitIssues.listingAllIssues().prefetchStates(asList("#1", "#2", "#150"));
+
+        assertThat(gitIssues.isGitIssueOpen("#1")).isFalse();
+        assertThat(gitIssues.isGitIssueOpen("#2")).isTrue();
+        assertThat(gitIssues.isGitIssueOpen("#150")).isTrue();
+        verify(2, getRequestedFor(urlPathEqualTo(LIST_URL_PATH)));
+        verify(0, getRequestedFor(urlPathMatching(LIST_URL_PATH + "/.*")));
+    }
+
+    @Test
+    public void reportsAFailedListingAsAnIOException() throws Exception {
+        stubFor(get(urlPathEqualTo(LIST_URL_PATH))
+                .willReturn(aResponse().withStatus(500)));
+
+        assertThatThrownBy(() -> gitIssues.listingAllIssues().prefetchStates(singletonList("#1")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Problem listing issues");
+    }
+
+    @Test
+    public void onlyListsIssuesUpdatedSinceTheSnapshot() throws Exception {
+        Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("git-issues.json");
+        stubFor(get(urlPathEqualTo(LIST_URL_PATH))
+                .willReturn(aResponse().withStatus(200).withBody(issuesPage(1, 2))));
+        new GitIssues(TEST_USER, TEST_REPO, "http://localhost:8089", httpClient)
+                .snapshottingStatesIn(snapshotFile)
+                .prefetchStates(asList("#1", "#2"));
+
+        stubFor(get(urlPathEqualTo(LIST_URL_PATH))
+                .withQueryParam("since", matching(".+"))
+                .willReturn(aResponse().withStatus(200).withBody("[{\"number\": 2, \"state\": \"closed\"}]")));
+        GitIssues nextRun = new GitIssues(TEST_USER, TEST_REPO, "http://localhost:8089", httpClient)
+                .snapshottingStatesIn(snapshotFile);
+        nextRun.prefetchStates(asList("#1", "#2"));
+
+        assertThat(nextRun.isGitIssueOpen("#1")).isFalse();
+        assertThat(nextRun.isGitIssueOpen("#2")).isFalse();
+        verify(1, getRequestedFor(urlPathEqualTo(LIST_URL_PATH)).withQueryParam("since", matching(".+")));
+    }
+
+    @Test
+    public void storesTheListedStatesOfTheReferencedIssues() throws Exception {
+        Path storeFile = temporaryFolder.getRoot().toPath().resolve("issue-statuses.json");
+        stubFor(get(urlPathEqualTo(LIST_URL_PATH))
+                .willReturn(aResponse().withStatus(200).withBody(issuesPage(1, 2))));
+        IssueStatusStore statusStore = IssueStatusStore.load(storeFile, Duration.ofDays(1));
+        gitIssues.listingAllIssues().storingStatesIn(statusStore).prefetchStates(asList("#1", "#2"));
+        statusStore.save();
+
+        GitIssues nextRun = new GitIssues(TEST_USER, TEST_REPO, "http://localhost:8089", httpClient)
+                .listingAllIssues()
+                .storingStatesIn(IssueStatusStore.load(storeFile, Duration.ofDays(1)));
+        nextRun.prefetchStates(asList("#1", "#2"));
+
+        assertThat(nextRun.isGitIssueOpen("#1")).isFalse();
+        assertThat(nextRun.isGitIssueOpen("#2")).isTrue();
+        verify(1, getRequestedFor(urlPathEqualTo(LIST_URL_PATH)));
+        verify(0, getRequestedFor(urlPathMatching(LIST_URL_PATH + "/.*")));
+    }
+
+    @Test
+    public void requestsEachIssueOnItsOwnUnlessInBulkMode() throws Exception {
+        gitIssues.prefetchStates(asList("#1", "#2"));
+
+        verify(0, getRequestedFor(urlPathEqualTo(LIST_URL_PATH)));
+    }
+
+    /**
+     * Odd numbered issues are closed, even numbered issues open.
+     */
+    private static String issuesPage(int firstIssue, int lastIssue) {
+        StringBuilder page = new StringBuilder("[");
+        for (int issue = firstIssue; issue <= lastIssue; issue++) {
+            page.append(issue == firstIssue ? "" : ",")
+                    .append(format("{\"number\": %s, \"state\": \"%s\"}", issue, issue % 2 == 0 ? "open" : "closed"));
+        }
+        return page.append("]").toString();
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.tjheslin1.westie.infrastructure;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import io.github.tjheslin1.westie.http.RequestBuilder;
+import org.assertj.core.api.WithAssertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static java.util.Collections.singletonList;
+
+public class IssueStatusStoreTest implements WithAssertions {
+
+    private static final String GIT_ISSUE_URL = "/repos/testUser/testRepo/issues/100";
+    private static final String JIRA_ISSUE_URL_PATH = "/rest/api/2/issue/MON-100";
+
+    private final ApacheHttpClient httpClient = new ApacheHttpClient(Duration.ofSeconds(5));
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(8089);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void usesStoredStatesWithoutRequestingThemUntilTheyExpire() throws Exception {
+        Path storeFile = temporaryFolder.getRoot().toPath().resolve("issue-statuses.json");
+        stubFor(get(urlEqualTo(GIT_ISSUE_URL))
+                .willReturn(aResponse().withStatus(200).withHeader("ETag", "\"v1\"").withBody("{\"state\": \"open\"}")));
+
+        IssueStatusStore firstRun = IssueStatusStore.load(storeFile, Duration.ofDays(1));
+        assertThat(gitIssues(firstRun).isGitIssueOpen("#100")).isTrue();
+        firstRun.save();
+
+        assertThat(gitIssues(IssueStatusStore.load(storeFile, Duration.ofDays(1))).isGitIssueOpen("#100")).isTrue();
+
+        verify(1, getRequestedFor(urlEqualTo(GIT_ISSUE_URL)));
+    }
+
+    @Test
+    public void revalidatesExpiredStatesWithTheirETag() throws Exception {
+        Path storeFile = temporaryFolder.getRoot().toPath().resolve("issue-statuses.json");
+        stubFor(get(urlEqualTo(GIT_ISSUE_URL))
+                .willReturn(aResponse().withStatus(200).withHeader("ETag", "\"v1\"").withBody("{\"state\": \"closed\"}")));
+        IssueStatusStore firstRun = IssueStatusStore.load(storeFile, Duration.ZERO);
+        gitIssues(firstRun).isGitIssueOpen("#100");
+        firstRun.save();
+
+        // WireMock's Jetty appends "--gzip" to the ETag of a gzipped response
+        stubFor(get(urlEqualTo(GIT_ISSUE_URL))
+                .withHeader("If-None-Match", containing("v1"))
+                .willReturn(aResponse().withStatus(304)));
+
+        assertThat(gitIssues(IssueStatusStore.load(storeFile, Duration.ZERO)).isGitIssueOpen("#100")).isFalse();
+
+        verify(1, getRequestedFor(urlEqualTo(GIT_ISSUE_URL)).withHeader("If-None-Match", containing("v1")));
+    }
+
+    @Test
+    public void revalidatesExpiredStatusesWithTheirLastModifiedTime() throws Exception {
+        String lastModified = "Wed, 21 Oct 2015 07:28:00 GMT";
+        stubFor(get(urlPathEqualTo(JIRA_ISSUE_URL_PATH))
+                .willReturn(aResponse().withStatus(200).withHeader("Last-Modified", lastModified)
+                        .withBody("{\"fields\": {\"status\": {\"name\": \"Development\"}}}")));
+        IssueStatusStore statusStore = IssueStatusStore.load(temporaryFolder.getRoot().toPath().resolve("issue-statuses.json"), Duration.ZERO);
+        jiraIssues(statusStore).isJiraIssueInAllowedStatus("MON-100");
+
+        stubFor(get(urlPathEqualTo(JIRA_ISSUE_URL_PATH))
+                .withHeader("If-Modified-Since", equalTo(lastModified))
+                .willReturn(aResponse().withStatus(304)));
+
+        assertThat(jiraIssues(statusStore).isJiraIssueInAllowedStatus("MON-100")).isTrue();
+        verify(1, getRequestedFor(urlPathEqualTo(JIRA_ISSUE_URL_PATH)).withHeader("If-Modified-Since", equalTo(lastModified)));
+    }
+
+    @Test
+    public void dropsTheValidatorsOfAStatusReplacedByAListing() throws Exception {
+        stubFor(get(urlEqualTo(GIT_ISSUE_URL))
+                .willReturn(aResponse().withStatus(200).withHeader("ETag", "\"v1\"").withBody("{\"state\": \"open\"}")));
+        IssueStatusStore statusStore = IssueStatusStore.load(temporaryFolder.getRoot().toPath().resolve("issue-statuses.json"), Duration.ZERO);
+        gitIssues(statusStore).isGitIssueOpen("#100");
+
+        statusStore.store("http://localhost:8089" + GIT_ISSUE_URL, "closed");
+
+        assertThat(statusStore.conditionally("http://localhost:8089" + GIT_ISSUE_URL,
+                new RequestBuilder().get().url("http://localhost:8089" + GIT_ISSUE_URL)).build().headers)
+                .doesNotContainKeys("If-None-Match", "If-Modified-Since");
+    }
+
+    private GitIssues gitIssues(IssueStatusStore statusStore) {
+        return new GitIssues("testUser", "testRepo", "http://localhost:8089", httpClient).storingStatesIn(statusStore);
+    }
+
+    private JiraIssues jiraIssues(IssueStatusStore statusStore) {
+        return new JiraIssues("http://localhost:8089", "testUser", "testPass", singletonList("Development"), httpClient)
+                .storingStatusesIn(statusStore);
+    }
+}
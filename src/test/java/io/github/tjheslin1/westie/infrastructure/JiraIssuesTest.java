@@ -6,6 +6,7 @@ import org.assertj.core.api.WithAssertions;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.List;
 
@@ -17,6 +18,7 @@ public class JiraIssuesTest implements WithAssertions {
 
     private static final List<String> ALLOWED_STATUSES = asList("Ready To Play", "Development");
     private static final String WIREMOCK_URL_FORMAT = "/rest/api/2/issue/%s?&os_username=%s&os_password=%s";
+    private static final String SEARCH_PATH = "/rest/api/2/search";
     private static final String JIRA_URL_FORMAT = "http://localhost:8089";
     private static final String TEST_USER = "testUser";
     private static final String TEST_PASS = "testPass";
@@ -42,4 +44,84 @@ public class JiraIssuesTest implements WithAssertions {
 
         verify(1, getRequestedFor(urlPattern));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void requestsStatusWithoutBlockingOncePerIssueNumber() throws Exception {
+        UrlPattern urlPattern = urlEqualTo(format(WIREMOCK_URL_FORMAT, "MON-100", TEST_USER, TEST_PASS));
+        stubFor(get(urlPattern)
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("{\"fields\": {\"status\": {\"name\": \"Done\"}}}")));
+
+        assertThat(jiraIssues.isJiraIssueInAllowedStatusAsync("MON-100").get()).isFalse();
+        assertThat(jiraIssues.isJiraIssueInAllowedStatusAsync("MON-100").get()).isFalse();
+        assertThat(jiraIssues.isJiraIssueInAllowedStatus("MON-100")).isFalse();
+
+        verify(1, getRequestedFor(urlPattern));
+    }
+
+    @Test
+    public void requestsStatusesOfManyIssuesInPagedBatches() throws Exception {
+        stubFor(get(urlPathEqualTo(SEARCH_PATH))
+                .withQueryParam("jql", equalTo("key in (\"MON-100\",\"MON-101\",\"MON-102\")"))
+                .withQueryParam("fields", equalTo("status"))
+                .withQueryParam("startAt", equalTo("0"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("{\"total\": 3, \"issues\": [" +
+                                "{\"key\": \"MON-100\", \"fields\": {\"status\": {\"name\": \"Development\"}}}," +
+                                "{\"key\": \"MON-101\", \"fields\": {\"status\": {\"name\": \"Done\"}}}]}")));
+        stubFor(get(urlPathEqualTo(SEARCH_PATH))
+                .withQueryParam("startAt", equalTo("2"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("{\"total\": 3, \"issues\": [" +
+                                "{\"key\": \"MON-102\", \"fields\": {\"status\": {\"name\": \"Ready To Play\"}}}]}")));
+
+        jiraIssues.prefetchStatuses(asList("MON-100", "MON-101", "MON-102", "MON-100"));
+
+        assertThat(jiraIssues.isJiraIssueInAllowedStatus("MON-100")).isTrue();
+        assertThat(jiraIssues.isJiraIssueInAllowedStatus("MON-101")).isFalse();
+        assertThat(jiraIssues.isJiraIssueInAllowedStatus("MON-102")).isTrue();
+
+        verify(2, getRequestedFor(urlPathEqualTo(SEARCH_PATH)));
+        verify(0, getRequestedFor(urlPathMatching("/rest/api/2/issue/.*")));
+    }
+
+    @Test
+    public void requestsOnlyTheIssuesMissingFromTheSearchOneAtATime() throws Exception {
+        stubFor(get(urlPathEqualTo(SEARCH_PATH))
+                .withQueryParam("validateQuery", equalTo("warn"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("{\"total\": 1, " +
+                                "\"warningMessages\": [\"The value 'MON-999' does not exist for the field 'key'.\"], \"issues\": [" +
+                                "{\"key\": \"MON-100\", \"fields\": {\"status\": {\"name\": \"Development\"}}}]}")));
+        UrlPattern missingIssue = urlEqualTo(format(WIREMOCK_URL_FORMAT, "MON-999", TEST_USER, TEST_PASS));
+        stubFor(get(missingIssue)
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("{\"fields\": {\"status\": {\"name\": \"Done\"}}}")));
+
+        jiraIssues.prefetchStatuses(asList("MON-100", "MON-999"));
+
+        assertThat(jiraIssues.isJiraIssueInAllowedStatus("MON-100")).isTrue();
+        assertThat(jiraIssues.isJiraIssueInAllowedStatus("MON-999")).isFalse();
+        verify(1, getRequestedFor(urlPathEqualTo(SEARCH_PATH)));
+        verify(0, getRequestedFor(urlEqualTo(format(WIREMOCK_URL_FORMAT, "MON-100", TEST_USER, TEST_PASS))));
+        verify(1, getRequestedFor(missingIssue));
+    }
+
+    @Test
+    public void reportsSearchRejectedByJira() throws Exception {
+        stubFor(get(urlPathEqualTo(SEARCH_PATH))
+                .willReturn(aResponse()
+                        .withStatus(400)
+                        .withBody("{\"errorMessages\": [\"Error in the JQL Query\"]}")));
+
+        assertThatThrownBy(() -> jiraIssues.prefetchStatuses(asList("MON-100", "MON-999")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("400")
+                .hasMessageContaining("Error in the JQL Query");
+    }
+}
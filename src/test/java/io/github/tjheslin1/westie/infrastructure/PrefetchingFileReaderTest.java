@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Thomas Heslin <tjheslin1@gmail.com>.
+ *
+ * This file is part of Westie.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.tjheslin1.westie.infrastructure;
+
+import io.github.tjheslin1.westie.testinfrastructure.TestWestieFileReader;
+import org.assertj.core.api.WithAssertions;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class PrefetchingFileReaderTest implements WithAssertions {
+
+    private static final Path READ_MY_LINES = Paths.get("src/test/resources/io/github/tjheslin1/examples/lineReading/ReadMyLines.java");
+
+    private final List<String> readingThreads = new CopyOnWriteArrayList<>();
+    private final WestieFileReader recordingFileReader = file -> {
+        readingThreads.add(Thread.currentThread().getName());
+        return new TestWestieFileReader().readAllLines(file);
+    };
+
+    private PrefetchingFileReader prefetchingFileReader;
+
+    @After
+    public void tearDown() {
+        prefetchingFileReader.close();
+    }
+
+    @Test
+    public void readsPrefetchedFileOnBackgroundThread() throws Exception {
+        prefetchingFileReader = new PrefetchingFileReader(recordingFileReader, 4, 1024 * 1024, 1);
+
+        prefetchingFileReader.prefetch(READ_MY_LINES, attributes(READ_MY_LINES));
+
+        assertThat(prefetchingFileReader.readAllLines(READ_MY_LINES)).isEqualTo(new TestWestieFileReader().readAllLines(READ_MY_LINES));
+        assertThat(readingThreads).hasSize(1);
+        assertThat(readingThreads.get(0)).startsWith("westie-prefetch-");
+    }
+
+    @Test
+    public void readsFileWhenNeededIfPrefetchingItWouldExceedMaxInFlightBytes() throws Exception {
+        prefetchingFileReader = new PrefetchingFileReader(recordingFileReader, 4, 10, 1);
+
+        prefetchingFileReader.prefetch(READ_MY_LINES, attributes(READ_MY_LINES));
+
+        assertThat(prefetchingFileReader.readAllLines(READ_MY_LINES)).isNotEmpty();
+        assertThat(readingThreads).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    public void rethrowsFailureReadingPrefetchedFile() throws Exception {
+        prefetchingFileReader = new PrefetchingFileReader(file -> {
+            throw new IOException("Disk error");
+        }, 4, 1024 * 1024, 1);
+
+        prefetchingFileReader.prefetch(READ_MY_LINES, attributes(READ_MY_LINES));
+
+        assertThatThrownBy(() -> prefetchingFileReader.readAllLines(READ_MY_LINES))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Disk error");
+    }
+
+    @Test
+    public void discardsFilesPrefetchedButNotReadAndReleasesTheirBytes() throws Exception {
+        long fileSize = attributes(READ_MY_LINES).size();
+        prefetchingFileReader = new PrefetchingFileReader(recordingFileReader, 4, fileSize, 1);
+
+        prefetchingFileReader.prefetch(READ_MY_LINES, attributes(READ_MY_LINES));
+        prefetchingFileReader.discardPrefetched();
+        readingThreads.clear();
+        prefetchingFileReader.prefetch(READ_MY_LINES, attributes(READ_MY_LINES));
+
+        assertThat(prefetchingFileReader.readAllLines(READ_MY_LINES)).isNotEmpty();
+        assertThat(readingThreads).hasSize(1);
+        assertThat(readingThreads.get(0)).startsWith("westie-prefetch-");
+    }
+
+    @Test
+    public void doesNotPrefetchFilesWhichTheProvidedReaderStreams() throws Exception {
+        prefetchingFileReader = new PrefetchingFileReader(new WestieFileReader() {
+            @Override
+            public List<String> readAllLines(Path filePath) throws IOException {
+                return recordingFileReader.readAllLines(filePath);
+            }
+
+            @Override
+            public boolean streamsLinesOf(BasicFileAttributes attrs) {
+                return true;
+            }
+        }, 4, 1024 * 1024, 1);
+
+        prefetchingFileReader.prefetch(READ_MY_LINES, attributes(READ_MY_LINES));
+
+        assertThat(prefetchingFileReader.readAllLines(READ_MY_LINES)).isNotEmpty();
+        assertThat(readingThreads).containsExactly(Thread.currentThread().getName());
+    }
+
+    private static BasicFileAttributes attributes(Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class);
+    }
+}
@@ -10,10 +10,12 @@ import org.junit.Test;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashSet;
 import java.util.List;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 
 public class JiraReferenceAnalyserTest implements WithAssertions, WithMockito {
 
@@ -24,7 +26,7 @@ public class JiraReferenceAnalyserTest implements WithAssertions, WithMockito {
 
     @Test
     public void findsJiraIssueWhichIsInDevComplete() throws Exception {
-        when(jiraIssues.isJiraIssueInAllowedStatus(ISSUE_NUMBER)).thenReturn(false);
+        when(jiraIssues.isJiraIssueInAllowedStatusAsync(any())).thenReturn(completedFuture(false));
         when(jiraIssues.allowedStatuses()).thenReturn(asList("Ready To Play", "Development"));
 
         JiraReferenceAnalyser jiraReferenceAnalyser = new JiraReferenceAnalyser(jiraIssues, JIRA_ISSUE_REGEX, new TestWestieFileReader());
@@ -53,7 +55,7 @@ public class JiraReferenceAnalyserTest implements WithAssertions, WithMockito {
 
     @Test
     public void doesNotReportOnIgnoredFiles() throws Exception {
-        when(jiraIssues.isJiraIssueInAllowedStatus(ISSUE_NUMBER)).thenReturn(false);
+        when(jiraIssues.isJiraIssueInAllowedStatusAsync(any())).thenReturn(completedFuture(false));
         when(jiraIssues.allowedStatuses()).thenReturn(asList("Ready To Play", "Development"));
 
         JiraReferenceAnalyser jiraReferenceAnalyser = new JiraReferenceAnalyser(jiraIssues, JIRA_ISSUE_REGEX, new TestWestieFileReader());
@@ -63,4 +65,15 @@ public class JiraReferenceAnalyserTest implements WithAssertions, WithMockito {
 
         assertThat(violations).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void retrievesTheStatusesOfAllReferencedIssuesBeforeAnalysing() throws Exception {
+        when(jiraIssues.isJiraIssueInAllowedStatusAsync(any())).thenReturn(completedFuture(true));
+        JiraReferenceAnalyser jiraReferenceAnalyser = new JiraReferenceAnalyser(jiraIssues, JIRA_ISSUE_REGEX, new TestWestieFileReader());
+
+        Path pathToCheck = Paths.get("src/test/resources/io/github/tjheslin1/examples/jira");
+        jiraReferenceAnalyser.todosAreInAllowedStatuses(pathToCheck);
+
+        verify(jiraIssues).prefetchStatuses(new HashSet<>(asList("MON-100", "MON-101")));
+    }
+}